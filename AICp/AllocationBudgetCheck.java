@@ -0,0 +1,145 @@
+package AICp;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the bytes each engine allocates per solve once warmed up and fails
+ * when an engine exceeds its budget.
+ *
+ * Each engine first solves every puzzle {@code --warmup} times, so JIT
+ * compilation and its per-thread pooled state are in place. Then each solve is
+ * measured on its own with the thread's allocated-bytes counter. The engines
+ * that keep their search state in pooled buffers have a budget of zero; the
+ * rest are reported without a limit unless {@code --budget} sets one. The
+ * metrics bracket around each solve is left out of the measurement.
+ *
+ * Run it as a build step: it exits with status 1 if any budget is exceeded.
+ *
+ * Usage: {@code java AICp.AllocationBudgetCheck [--puzzles N] [--corpus file]
+ * [--warmup N] [--engines NAME,NAME] [--seed S] [--budget NAME=BYTES]...}
+ */
+public class AllocationBudgetCheck {
+    private static final int SIZE = 9;
+    private static final Map<SudokuEngine, Long> DEFAULT_BUDGETS = new EnumMap<>(SudokuEngine.class);
+
+    static {
+        DEFAULT_BUDGETS.put(SudokuEngine.BACKTRACKING, 0L);
+        DEFAULT_BUDGETS.put(SudokuEngine.CONSTRAINT_PROGRAMMING, 0L);
+        DEFAULT_BUDGETS.put(SudokuEngine.MRV, 0L);
+        DEFAULT_BUDGETS.put(SudokuEngine.SIMULATED_ANNEALING, 0L);
+    }
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final long threadId = Thread.currentThread().getId();
+    private final long overhead;
+
+    /**
+     * Must be created on the thread that runs {@link #measure}.
+     */
+    public AllocationBudgetCheck() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM does not count allocated bytes per thread");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        // Reading the counter can allocate by itself; calibrate that away
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            least = Math.min(least, threads.getThreadAllocatedBytes(threadId) - start);
+        }
+        overhead = least;
+    }
+
+    /**
+     * @return the bytes allocated by each measured solve, one per puzzle
+     */
+    public long[] measure(SudokuEngine engine, List<PackedBoard> puzzles, int warmup, long seed) {
+        int[][] grid = new int[SIZE][SIZE];
+        for (int round = 0; round < warmup; round++) {
+            for (int i = 0; i < puzzles.size(); i++) {
+                puzzles.get(i).copyTo(grid);
+                solve(engine, grid, seed + i);
+            }
+        }
+        long[] bytes = new long[puzzles.size()];
+        for (int i = 0; i < puzzles.size(); i++) {
+            puzzles.get(i).copyTo(grid);
+            SolverMetrics.begin();
+            long start = threads.getThreadAllocatedBytes(threadId);
+            boolean solved = engine.solveUnmeasured(grid, seed + i);
+            bytes[i] = Math.max(0, threads.getThreadAllocatedBytes(threadId) - start - overhead);
+            SolverMetrics.finish(engine.name(), solved);
+        }
+        return bytes;
+    }
+
+    private static void solve(SudokuEngine engine, int[][] grid, long seed) {
+        SolverMetrics.begin();
+        SolverMetrics.finish(engine.name(), engine.solveUnmeasured(grid, seed));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int puzzlesPerLevel = 3;
+        Path corpus = null;
+        int warmup = 20;
+        long seed = ThreadLocalRandom.current().nextLong();
+        List<SudokuEngine> engines = new ArrayList<>(Arrays.asList(SudokuEngine.values()));
+        Map<SudokuEngine, Long> budgets = new EnumMap<>(DEFAULT_BUDGETS);
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--puzzles":
+                    puzzlesPerLevel = Integer.parseInt(args[++i]);
+                    break;
+                case "--corpus":
+                    corpus = Paths.get(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--engines":
+                    engines.clear();
+                    for (String name : args[++i].split(",")) {
+                        engines.add(SudokuEngine.fromName(name.trim()));
+                    }
+                    break;
+                case "--budget":
+                    String[] budget = args[++i].split("=", 2);
+                    budgets.put(SudokuEngine.fromName(budget[0].trim()), Long.parseLong(budget[1].trim()));
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Seed: " + seed);
+        List<PackedBoard> puzzles = corpus != null
+                ? EngineBenchmark.loadCorpus(corpus) : EngineBenchmark.generate(puzzlesPerLevel, seed);
+        AllocationBudgetCheck check = new AllocationBudgetCheck();
+        boolean withinBudget = true;
+        System.out.printf("%-24s %14s %14s %14s%n", "Engine", "Mean bytes", "Max bytes", "Budget");
+        for (SudokuEngine engine : engines) {
+            long[] bytes = check.measure(engine, puzzles, warmup, seed);
+            long max = Arrays.stream(bytes).max().orElse(0);
+            Long budget = budgets.get(engine);
+            boolean within = budget == null || max <= budget;
+            withinBudget &= within;
+            System.out.printf("%-24s %14.1f %14d %14s%s%n", engine.getDisplayName(),
+                    Arrays.stream(bytes).average().orElse(0), max, budget == null ? "-" : budget.toString(),
+                    within ? "" : "  OVER BUDGET");
+        }
+        if (!withinBudget) {
+            System.out.println("Allocation budget exceeded");
+            System.exit(1);
+        }
+    }
+}
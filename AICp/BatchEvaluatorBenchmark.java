@@ -0,0 +1,80 @@
+package AICp;
+
+import java.util.*;
+
+/**
+ * Compares the scalar and the loaded {@link BoardBatchEvaluator} on random
+ * full boards, checking that both give the same scores.
+ *
+ * Usage: {@code java [--add-modules jdk.incubator.vector] AICp.BatchEvaluatorBenchmark [populationSize ...]}
+ */
+public class BatchEvaluatorBenchmark {
+    private static final int SIZE = 9;
+    private static final long TARGET_NANOS = 500_000_000L;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{1_000, 10_000, 100_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        BoardBatchEvaluator scalar = BoardBatchEvaluator.scalar();
+        BoardBatchEvaluator best = BoardBatchEvaluator.create();
+        System.out.println("Evaluator: " + best.getName());
+        System.out.printf("%10s %14s %14s %8s%n", "Boards", "Scalar ns/bd", best.getName() + " ns/bd", "Speedup");
+
+        Random rand = new Random(42);
+        for (int size : sizes) {
+            BoardBatch batch = randomBatch(size, rand);
+            int[] expected = new int[size];
+            int[] actual = new int[size];
+            scalar.conflicts(batch, expected);
+            best.conflicts(batch, actual);
+            if (!Arrays.equals(expected, actual)) {
+                throw new IllegalStateException(best.getName() + " disagrees with the scalar evaluator");
+            }
+
+            double scalarNanos = measure(scalar, batch, expected);
+            double bestNanos = measure(best, batch, actual);
+            System.out.printf("%10d %14.2f %14.2f %7.2fx%n", size, scalarNanos, bestNanos, scalarNanos / bestNanos);
+        }
+    }
+
+    /**
+     * Boards whose rows are random permutations, like GA candidates.
+     */
+    static BoardBatch randomBatch(int size, Random rand) {
+        BoardBatch batch = new BoardBatch(size);
+        int[][] board = new int[SIZE][SIZE];
+        for (int b = 0; b < size; b++) {
+            for (int[] row : board) {
+                for (int i = 0; i < SIZE; i++) {
+                    row[i] = i + 1;
+                }
+                for (int i = SIZE - 1; i > 0; i--) {
+                    int j = rand.nextInt(i + 1);
+                    int temp = row[i];
+                    row[i] = row[j];
+                    row[j] = temp;
+                }
+            }
+            batch.add(board);
+        }
+        return batch;
+    }
+
+    /**
+     * @return the mean nanoseconds per board, after a warm-up of the same length
+     */
+    private static double measure(BoardBatchEvaluator evaluator, BoardBatch batch, int[] out) {
+        for (int pass = 0; ; pass++) {
+            long start = System.nanoTime();
+            long runs = 0;
+            while (System.nanoTime() - start < TARGET_NANOS) {
+                evaluator.conflicts(batch, out);
+                runs++;
+            }
+            if (pass == 1) return (double) (System.nanoTime() - start) / (runs * batch.size());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package AICp;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Headless batch solver: streams a puzzle corpus through one engine and appends
+ * the results to an output corpus.
+ *
+ * Usage: {@code java AICp.BatchRunner <engine> <input> <output> [--binary]}
+ *
+ * Text output holds one solution line per input puzzle; binary output stores
+ * puzzle and solution pairs. Unsolved puzzles get an all-empty solution board so
+ * output records stay aligned with the input.
+ */
+public class BatchRunner {
+    private static final int SIZE = 9;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BatchRunner <engine> <input> <output> [--binary]");
+            System.exit(2);
+        }
+        SudokuEngine engine = SudokuEngine.fromName(args[0]);
+        boolean binary = args.length > 3 && args[3].equals("--binary");
+
+        try (PuzzleCorpusReader reader = new PuzzleCorpusReader(Paths.get(args[1]));
+             PuzzleCorpusWriter writer = binary
+                     ? PuzzleCorpusWriter.binary(Paths.get(args[2]), PackedBoardFile.PUZZLES_WITH_SOLUTIONS)
+                     : PuzzleCorpusWriter.text(Paths.get(args[2]))) {
+            long start = System.nanoTime();
+            long[] counts = run(engine, reader, writer);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: solved %d of %d puzzles in %.2f s (%.0f puzzles/s)%n",
+                    engine.getDisplayName(), counts[1], counts[0], seconds, counts[0] / Math.max(seconds, 1e-9));
+        }
+    }
+
+    /**
+     * Solves every puzzle from {@code reader} and writes the results to {@code writer}.
+     * @return the number of puzzles read and the number solved
+     */
+    public static long[] run(SudokuEngine engine, PuzzleCorpusReader reader, PuzzleCorpusWriter writer)
+            throws IOException {
+        PackedBoard puzzle = new PackedBoard();
+        PackedBoard solution = new PackedBoard();
+        PackedBoard empty = new PackedBoard();
+        int[][] grid = new int[SIZE][SIZE];
+        long total = 0;
+        long solved = 0;
+
+        while (reader.next(puzzle)) {
+            total++;
+            puzzle.copyTo(grid);
+            boolean ok = engine.solve(grid);
+            if (ok) {
+                solution.setFrom(grid);
+                solved++;
+            }
+            if (writer.isBinary()) {
+                writer.write(puzzle, ok ? solution : empty);
+            } else {
+                writer.write(ok ? solution : empty);
+            }
+        }
+        return new long[]{total, solved};
+    }
+}
@@ -0,0 +1,71 @@
+package AICp;
+
+/**
+ * A fixed-capacity batch of 9x9 boards stored cell-major, so the same cell of
+ * consecutive boards is contiguous: cell c of board b lives at
+ * {@code array()[c * capacity() + b]}. This is the layout
+ * {@link BoardBatchEvaluator} scores many boards at a time from.
+ */
+public final class BoardBatch {
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+
+    private final int capacity;
+    private final int[] cells;
+    private int size;
+
+    public BoardBatch(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.cells = new int[CELLS * capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the index of the added board
+     */
+    public int add(int[][] board) {
+        if (size == capacity) throw new IllegalStateException("Batch is full");
+        set(size, board);
+        return size++;
+    }
+
+    public int add(PackedBoard board) {
+        if (size == capacity) throw new IllegalStateException("Batch is full");
+        for (int cell = 0; cell < CELLS; cell++) {
+            cells[cell * capacity + size] = board.get(cell);
+        }
+        return size++;
+    }
+
+    public void set(int index, int[][] board) {
+        for (int row = 0; row < SIZE; row++) {
+            int[] values = board[row];
+            for (int col = 0; col < SIZE; col++) {
+                cells[(row * SIZE + col) * capacity + index] = values[col];
+            }
+        }
+    }
+
+    public int get(int index, int cell) {
+        return cells[cell * capacity + index];
+    }
+
+    /**
+     * @return the backing array, for evaluators; see the class comment for the layout
+     */
+    public int[] array() {
+        return cells;
+    }
+}
@@ -0,0 +1,111 @@
+package AICp;
+
+/**
+ * Scores a {@link BoardBatch} at a time. A unit's score is the number of digits
+ * missing from it, which for a full board equals its duplicate count, computed
+ * by OR-ing one-hot digit masks and counting the bits.
+ *
+ * {@link #create()} returns the SIMD implementation in {@code AICp.vector} when
+ * it was compiled and the JVM runs with {@code --add-modules jdk.incubator.vector},
+ * and the scalar implementation otherwise.
+ */
+public abstract class BoardBatchEvaluator {
+    protected static final int SIZE = 9;
+    protected static final int UNIT_COUNT = 3 * SIZE;
+    protected static final int DIGIT_MASK = 0x3FE;
+    // Rows 0-8, columns 9-17, boxes 18-26
+    protected static final int[][] UNITS = new int[UNIT_COUNT][SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                UNITS[i][j] = i * SIZE + j;
+                UNITS[SIZE + i][j] = j * SIZE + i;
+                UNITS[2 * SIZE + i][j] = ((i / 3) * 3 + j / 3) * SIZE + (i % 3) * 3 + j % 3;
+            }
+        }
+    }
+
+    private static final String VECTOR_IMPLEMENTATION = "AICp.vector.VectorBoardEvaluator";
+    private static final BoardBatchEvaluator SCALAR = new Scalar();
+
+    /**
+     * @return the vector evaluator if it can be loaded, otherwise the scalar one
+     */
+    public static BoardBatchEvaluator create() {
+        try {
+            return (BoardBatchEvaluator) Class.forName(VECTOR_IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    public static BoardBatchEvaluator scalar() {
+        return SCALAR;
+    }
+
+    public abstract String getName();
+
+    /**
+     * Writes each board's score over all 27 units to {@code out[0..batch.size())}.
+     */
+    public void conflicts(BoardBatch batch, int[] out) {
+        score(batch, 0, out);
+    }
+
+    /**
+     * Like {@link #conflicts} but skips the rows, for boards whose rows are
+     * permutations by construction.
+     */
+    public void columnBoxConflicts(BoardBatch batch, int[] out) {
+        score(batch, SIZE, out);
+    }
+
+    /**
+     * Scores units {@code firstUnit..26} of every board in the batch.
+     */
+    protected abstract void score(BoardBatch batch, int firstUnit, int[] out);
+
+    protected static void scoreScalar(BoardBatch batch, int firstUnit, int[] out, int from, int to) {
+        int[] cells = batch.array();
+        int stride = batch.capacity();
+        int maxDistinct = (UNIT_COUNT - firstUnit) * SIZE;
+        for (int b = from; b < to; b++) {
+            int distinct = 0;
+            for (int unit = firstUnit; unit < UNIT_COUNT; unit++) {
+                int seen = 0;
+                for (int cell : UNITS[unit]) {
+                    seen |= 1 << cells[cell * stride + b];
+                }
+                distinct += Integer.bitCount(seen & DIGIT_MASK);
+            }
+            out[b] = maxDistinct - distinct;
+        }
+    }
+
+    /**
+     * @return true if the board is full and every unit holds each digit once
+     */
+    public static boolean isSolved(int[][] board) {
+        for (int[] unit : UNITS) {
+            int seen = 0;
+            for (int cell : unit) {
+                seen |= 1 << board[cell / SIZE][cell % SIZE];
+            }
+            if (seen != DIGIT_MASK) return false;
+        }
+        return true;
+    }
+
+    private static final class Scalar extends BoardBatchEvaluator {
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+
+        @Override
+        protected void score(BoardBatch batch, int firstUnit, int[] out) {
+            scoreScalar(batch, firstUnit, out, 0, batch.size());
+        }
+    }
+}
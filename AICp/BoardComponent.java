@@ -0,0 +1,360 @@
+package AICp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Custom-painted, keyboard-editable 9x9 board.
+ *
+ * Every change repaints only the cells it affects, and painting skips cells
+ * outside the clip, so replaying thousands of solver steps per frame through
+ * {@link #drain(SearchEventRing)} stays cheap. Conflicts come from a
+ * {@link ConflictTracker}; empty cells show pencil marks, either the tracker's
+ * candidates or the domains reported by a visualised solver.
+ */
+public class BoardComponent extends JComponent {
+    private static final int SIZE = 9;
+    private static final int SUBGRID = 3;
+    private static final int CELLS = SIZE * SIZE;
+
+    private static final Color SHADED = new Color(173, 216, 230);
+    private static final Color UNSHADED = Color.WHITE;
+    private static final Color CONFLICT = Color.RED;
+    private static final Color HINT = Color.YELLOW;
+    private static final Color SELECTED = new Color(255, 236, 179);
+    private static final Color GIVEN_TEXT = Color.BLACK;
+    private static final Color ENTERED_TEXT = new Color(25, 70, 160);
+    private static final Color MARK_TEXT = Color.DARK_GRAY;
+    private static final Color GRID_LINE = Color.GRAY;
+    private static final Color BOX_LINE = Color.BLACK;
+    private static final String[] DIGITS = {"", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    private final ConflictTracker tracker = new ConflictTracker();
+    private final boolean[] givens = new boolean[CELLS];
+    private final boolean[] hints = new boolean[CELLS];
+    private final boolean[] highlighted = new boolean[CELLS];
+    // Domains reported by a visualised solver, 0 when unknown
+    private final int[] domains = new int[CELLS];
+    private final boolean[] dirty = new boolean[CELLS];
+    private int selected = -1;
+    private boolean editable = true;
+    private boolean pencilMarks = true;
+
+    private int cellSize;
+    private Font valueFont;
+    private Font markFont;
+
+    public BoardComponent() {
+        setPreferredSize(new Dimension(630, 630));
+        setFocusable(true);
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0) select(cell);
+                requestFocusInWindow();
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                keyPressedOnCell(e);
+            }
+        });
+    }
+
+    public int get(int row, int col) {
+        return tracker.get(row, col);
+    }
+
+    public void copyTo(int[][] board) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            board[cell / SIZE][cell % SIZE] = tracker.get(cell / SIZE, cell % SIZE);
+        }
+    }
+
+    /**
+     * Replaces the whole board; its filled cells become locked givens.
+     */
+    public void loadPuzzle(int[][] puzzle) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = puzzle[cell / SIZE][cell % SIZE];
+            givens[cell] = value != 0;
+            hints[cell] = false;
+            domains[cell] = 0;
+            tracker.set(cell / SIZE, cell % SIZE, value);
+        }
+        refreshAll();
+    }
+
+    /**
+     * Writes every non-given cell from the board, for example a solution.
+     */
+    public void fill(int[][] board) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (givens[cell]) continue;
+            hints[cell] = false;
+            domains[cell] = 0;
+            tracker.set(cell / SIZE, cell % SIZE, board[cell / SIZE][cell % SIZE]);
+        }
+        refreshAll();
+    }
+
+    /**
+     * Fills a cell and highlights it as a hint.
+     */
+    public void showHint(int row, int col, int value) {
+        int cell = row * SIZE + col;
+        hints[cell] = true;
+        setValue(cell, value);
+        flush();
+    }
+
+    public boolean hasConflicts() {
+        return tracker.hasConflicts();
+    }
+
+    public void setEditable(boolean editable) {
+        this.editable = editable;
+    }
+
+    public void setPencilMarks(boolean pencilMarks) {
+        this.pencilMarks = pencilMarks;
+        repaint();
+    }
+
+    /**
+     * Forgets the domains reported by a visualised solver.
+     */
+    public void clearDomains() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (domains[cell] != 0) {
+                domains[cell] = 0;
+                dirty[cell] = true;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Applies every event waiting in the ring and repaints each affected cell
+     * once, however many times it changed. Call on the event dispatch thread.
+     *
+     * @return the number of events applied
+     */
+    public int drain(SearchEventRing ring) {
+        int count = ring.drain(this::apply);
+        flush();
+        return count;
+    }
+
+    private void apply(int event) {
+        int cell = SearchEvents.cell(event);
+        switch (SearchEvents.type(event)) {
+            case SearchEvents.PLACE:
+                setValue(cell, SearchEvents.payload(event));
+                break;
+            case SearchEvents.REMOVE:
+                setValue(cell, 0);
+                break;
+            default:
+                if (domains[cell] != SearchEvents.payload(event)) {
+                    domains[cell] = SearchEvents.payload(event);
+                    dirty[cell] = true;
+                }
+        }
+    }
+
+    /**
+     * Updates one cell and marks it, and every peer whose conflict state or
+     * candidates may have changed, for repainting.
+     */
+    private void setValue(int cell, int value) {
+        int row = cell / SIZE, col = cell % SIZE;
+        if (!tracker.set(row, col, value)) return;
+        dirty[cell] = true;
+        int boxRow = (row / SUBGRID) * SUBGRID, boxCol = (col / SUBGRID) * SUBGRID;
+        for (int k = 0; k < SIZE; k++) {
+            markPeer(row * SIZE + k);
+            markPeer(k * SIZE + col);
+            markPeer((boxRow + k / SUBGRID) * SIZE + boxCol + k % SUBGRID);
+        }
+    }
+
+    private void markPeer(int cell) {
+        boolean conflict = tracker.isConflict(cell / SIZE, cell % SIZE);
+        if (conflict != highlighted[cell]) {
+            highlighted[cell] = conflict;
+            dirty[cell] = true;
+        } else if (pencilMarks && domains[cell] == 0 && tracker.get(cell / SIZE, cell % SIZE) == 0) {
+            dirty[cell] = true;
+        }
+    }
+
+    private void refreshAll() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            highlighted[cell] = tracker.isConflict(cell / SIZE, cell % SIZE);
+            dirty[cell] = false;
+        }
+        repaint();
+    }
+
+    private void flush() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (dirty[cell]) {
+                dirty[cell] = false;
+                repaintCell(cell);
+            }
+        }
+    }
+
+    private void select(int cell) {
+        if (cell == selected) return;
+        if (selected >= 0) repaintCell(selected);
+        selected = cell;
+        repaintCell(cell);
+    }
+
+    private void keyPressedOnCell(KeyEvent e) {
+        if (selected < 0) return;
+        int row = selected / SIZE, col = selected % SIZE;
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_UP:
+                select(((row + SIZE - 1) % SIZE) * SIZE + col);
+                return;
+            case KeyEvent.VK_DOWN:
+                select(((row + 1) % SIZE) * SIZE + col);
+                return;
+            case KeyEvent.VK_LEFT:
+                select(row * SIZE + (col + SIZE - 1) % SIZE);
+                return;
+            case KeyEvent.VK_RIGHT:
+                select(row * SIZE + (col + 1) % SIZE);
+                return;
+            default:
+        }
+        if (!editable || givens[selected]) return;
+
+        char c = e.getKeyChar();
+        int value;
+        if (c >= '1' && c <= '9') {
+            value = c - '0';
+        } else if (c == '0' || c == ' ' || e.getKeyCode() == KeyEvent.VK_BACK_SPACE
+                || e.getKeyCode() == KeyEvent.VK_DELETE) {
+            value = 0;
+        } else {
+            return;
+        }
+        hints[selected] = false;
+        dirty[selected] = true;
+        setValue(selected, value);
+        flush();
+    }
+
+    private int cellAt(int x, int y) {
+        if (cellSize == 0) return -1;
+        int col = (x - originX()) / cellSize;
+        int row = (y - originY()) / cellSize;
+        if (x < originX() || y < originY() || row >= SIZE || col >= SIZE) return -1;
+        return row * SIZE + col;
+    }
+
+    private void repaintCell(int cell) {
+        if (cellSize == 0) {
+            repaint();
+            return;
+        }
+        repaint(originX() + (cell % SIZE) * cellSize, originY() + (cell / SIZE) * cellSize,
+                cellSize + 1, cellSize + 1);
+    }
+
+    private int originX() {
+        return (getWidth() - cellSize * SIZE) / 2;
+    }
+
+    private int originY() {
+        return (getHeight() - cellSize * SIZE) / 2;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int size = Math.max(1, Math.min(getWidth(), getHeight()) / SIZE);
+        if (size != cellSize || valueFont == null) {
+            cellSize = size;
+            valueFont = new Font("Arial", Font.BOLD, size / 2);
+            markFont = new Font("Arial", Font.PLAIN, Math.max(8, size / 4));
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        g.setColor(getParent() != null ? getParent().getBackground() : UNSHADED);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int x0 = originX(), y0 = originY();
+        int firstCol = Math.max(0, (clip.x - x0) / cellSize);
+        int lastCol = Math.min(SIZE - 1, (clip.x + clip.width - x0) / cellSize);
+        int firstRow = Math.max(0, (clip.y - y0) / cellSize);
+        int lastRow = Math.min(SIZE - 1, (clip.y + clip.height - y0) / cellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintCell(g, row * SIZE + col, x0 + col * cellSize, y0 + row * cellSize);
+            }
+        }
+
+        // Grid lines; the clip keeps this to the repainted region
+        for (int i = 0; i <= SIZE; i++) {
+            g.setColor(i % SUBGRID == 0 ? BOX_LINE : GRID_LINE);
+            int width = i % SUBGRID == 0 ? 2 : 1;
+            g.fillRect(x0 + i * cellSize - width / 2, y0, width, SIZE * cellSize);
+            g.fillRect(x0, y0 + i * cellSize - width / 2, SIZE * cellSize, width);
+        }
+    }
+
+    private void paintCell(Graphics g, int cell, int x, int y) {
+        int row = cell / SIZE, col = cell % SIZE;
+        Color background;
+        if (highlighted[cell]) {
+            background = CONFLICT;
+        } else if (hints[cell]) {
+            background = HINT;
+        } else if (cell == selected) {
+            background = SELECTED;
+        } else {
+            background = (row / SUBGRID + col / SUBGRID) % 2 == 0 ? SHADED : UNSHADED;
+        }
+        g.setColor(background);
+        g.fillRect(x, y, cellSize, cellSize);
+
+        int value = tracker.get(row, col);
+        if (value != 0) {
+            g.setFont(valueFont);
+            g.setColor(givens[cell] ? GIVEN_TEXT : ENTERED_TEXT);
+            drawCentered(g, DIGITS[value], x + cellSize / 2, y + cellSize / 2);
+            return;
+        }
+
+        int marks = domains[cell] != 0 ? domains[cell] : pencilMarks ? tracker.candidates(row, col) : 0;
+        if (marks == 0) return;
+        g.setFont(markFont);
+        g.setColor(MARK_TEXT);
+        int third = cellSize / SUBGRID;
+        for (int bits = marks; bits != 0; bits &= bits - 1) {
+            int digit = Integer.numberOfTrailingZeros(bits);
+            drawCentered(g, DIGITS[digit], x + ((digit - 1) % SUBGRID) * third + third / 2,
+                    y + ((digit - 1) / SUBGRID) * third + third / 2);
+        }
+    }
+
+    private static void drawCentered(Graphics g, String text, int centerX, int centerY) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, centerX - metrics.stringWidth(text) / 2,
+                centerY + (metrics.getAscent() - metrics.getDescent()) / 2);
+    }
+}
@@ -0,0 +1,155 @@
+package AICp;
+
+/**
+ * Cheap candidate elimination run by the metaheuristics before they search:
+ * naked singles, hidden singles and naked pairs, repeated until nothing changes.
+ * Candidates are bitmasks where bit v means value v is still possible.
+ */
+public final class CandidatePropagator {
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ALL_VALUES = 0x3FE;
+    private static final int[][] UNITS = new int[3 * SIZE][SIZE];
+    private static final int[][] PEERS = new int[CELLS][20];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                UNITS[i][j] = i * SIZE + j;
+                UNITS[SIZE + i][j] = j * SIZE + i;
+                UNITS[2 * SIZE + i][j] = ((i / 3) * 3 + j / 3) * SIZE + (i % 3) * 3 + j % 3;
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (other != cell && (other / SIZE == cell / SIZE || other % SIZE == cell % SIZE
+                        || boxOf(other) == boxOf(cell))) {
+                    PEERS[cell][count++] = other;
+                }
+            }
+        }
+    }
+
+    private CandidatePropagator() {
+    }
+
+    /**
+     * Fills every cell of the board that propagation determines, in-place.
+     * @param board 9x9 Sudoku board where 0 represents empty cells
+     * @return the candidates of every cell indexed [row][col] (a single bit for
+     *         filled cells), or null if the board has no solution
+     */
+    public static int[][] propagate(int[][] board) {
+        return propagate(board, true);
+    }
+
+    /**
+     * @param allTechniques false to apply naked singles only, which is how
+     *                      {@link PuzzleGrader} tells easy puzzles apart
+     */
+    public static int[][] propagate(int[][] board, boolean allTechniques) {
+        int[] candidates = new int[CELLS];
+        if (!propagate(board, allTechniques, candidates)) return null;
+        int[][] result = new int[SIZE][SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            result[cell / SIZE][cell % SIZE] = candidates[cell];
+        }
+        return result;
+    }
+
+    /**
+     * Propagates without allocating, writing the candidates of cell
+     * {@code row * 9 + col} into the caller's array of 81.
+     * @return false if the board has no solution
+     */
+    public static boolean propagate(int[][] board, boolean allTechniques, int[] candidates) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            candidates[cell] = ALL_VALUES;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = board[cell / SIZE][cell % SIZE];
+            if (value != 0 && (!isCandidate(candidates, cell, value) || !place(board, candidates, cell, value))) {
+                return false;
+            }
+        }
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+
+            // Naked singles
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (board[cell / SIZE][cell % SIZE] != 0) continue;
+                if (candidates[cell] == 0) return false;
+                if (Integer.bitCount(candidates[cell]) == 1) {
+                    if (!place(board, candidates, cell, Integer.numberOfTrailingZeros(candidates[cell]))) return false;
+                    progress = true;
+                }
+            }
+
+            if (!allTechniques) continue;
+            for (int[] unit : UNITS) {
+                // Hidden singles
+                for (int value = 1; value <= SIZE; value++) {
+                    int bit = 1 << value;
+                    int target = -1;
+                    int count = 0;
+                    for (int cell : unit) {
+                        if ((candidates[cell] & bit) != 0) {
+                            target = cell;
+                            count++;
+                        }
+                    }
+                    if (count == 0) return false;
+                    if (count == 1 && board[target / SIZE][target % SIZE] == 0) {
+                        if (!place(board, candidates, target, value)) return false;
+                        progress = true;
+                    }
+                }
+
+                // Naked pairs
+                for (int i = 0; i < SIZE; i++) {
+                    int pair = candidates[unit[i]];
+                    if (board[unit[i] / SIZE][unit[i] % SIZE] != 0 || Integer.bitCount(pair) != 2) continue;
+                    for (int j = i + 1; j < SIZE; j++) {
+                        if (candidates[unit[j]] != pair || board[unit[j] / SIZE][unit[j] % SIZE] != 0) continue;
+                        for (int k = 0; k < SIZE; k++) {
+                            int cell = unit[k];
+                            if (k != i && k != j && (candidates[cell] & pair) != 0) {
+                                candidates[cell] &= ~pair;
+                                if (candidates[cell] == 0) return false;
+                                progress = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean place(int[][] board, int[] candidates, int cell, int value) {
+        if (board[cell / SIZE][cell % SIZE] == 0) {
+            SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
+        }
+        board[cell / SIZE][cell % SIZE] = value;
+        candidates[cell] = 1 << value;
+        for (int peer : PEERS[cell]) {
+            if ((candidates[peer] & (1 << value)) == 0) continue;
+            if (board[peer / SIZE][peer % SIZE] == value) return false;
+            candidates[peer] &= ~(1 << value);
+            if (candidates[peer] == 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean isCandidate(int[] candidates, int cell, int value) {
+        return (candidates[cell] & (1 << value)) != 0;
+    }
+
+    private static int boxOf(int cell) {
+        return (cell / SIZE / 3) * 3 + (cell % SIZE) / 3;
+    }
+}
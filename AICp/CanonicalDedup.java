@@ -0,0 +1,64 @@
+package AICp;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Streaming symmetry-class deduplication of a puzzle corpus. Each puzzle is
+ * canonicalized and only the first puzzle of each class is written out.
+ *
+ * Usage: {@code java AICp.CanonicalDedup <input> <output> [--binary] [--canonical]}
+ *
+ * Classes are remembered by the 64-bit fingerprint of their canonical form, so
+ * memory stays near 11 bytes per distinct class. Two different classes share a
+ * fingerprint with probability about n^2 / 2^65, which is negligible for corpora
+ * of a few hundred million puzzles.
+ */
+public class CanonicalDedup {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CanonicalDedup <input> <output> [--binary] [--canonical]");
+            System.exit(2);
+        }
+        boolean binary = false;
+        boolean writeCanonical = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--binary")) binary = true;
+            if (args[i].equals("--canonical")) writeCanonical = true;
+        }
+
+        try (PuzzleCorpusReader reader = new PuzzleCorpusReader(Paths.get(args[0]));
+             PuzzleCorpusWriter writer = binary
+                     ? PuzzleCorpusWriter.binary(Paths.get(args[1]), PackedBoardFile.PUZZLES)
+                     : PuzzleCorpusWriter.text(Paths.get(args[1]))) {
+            long start = System.nanoTime();
+            long[] counts = run(reader, writer, writeCanonical);
+            System.out.printf("Kept %d of %d puzzles (%d duplicates) in %.2f s%n",
+                    counts[1], counts[0], counts[0] - counts[1], (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Copies the first puzzle of every symmetry class from {@code reader} to {@code writer}.
+     * @return the number of puzzles read and the number kept
+     */
+    public static long[] run(PuzzleCorpusReader reader, PuzzleCorpusWriter writer, boolean writeCanonical)
+            throws IOException {
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        FingerprintSet seen = new FingerprintSet(1 << 20);
+        PackedBoard puzzle = new PackedBoard();
+        long total = 0;
+        long kept = 0;
+
+        while (reader.next(puzzle)) {
+            total++;
+            PackedBoard canonical = canonicalizer.canonicalForm(puzzle);
+            if (seen.add(canonical.fingerprint())) {
+                writer.write(writeCanonical ? canonical : puzzle);
+                kept++;
+            }
+        }
+        return new long[]{total, kept};
+    }
+}
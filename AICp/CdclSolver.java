@@ -0,0 +1,475 @@
+package AICp;
+
+import java.util.*;
+
+/**
+ * A small conflict-driven clause-learning SAT solver.
+ *
+ * Clauses are added in DIMACS style, variables numbered from 1 and negative
+ * integers meaning negated literals. The solver uses two watched literals per
+ * clause, VSIDS branching with phase saving, first-UIP learning with local
+ * minimisation, and Luby restarts that also drop the less active half of the
+ * learnt clauses.
+ *
+ * Internally literal {@code 2 * v} is variable v and {@code 2 * v + 1} its negation.
+ */
+public class CdclSolver {
+    private static final int UNDEF = -1;
+    private static final int RESTART_BASE = 100;
+    private static final double VAR_DECAY = 0.95;
+    private static final double CLAUSE_DECAY = 0.999;
+
+    private static final class Clause {
+        final int[] lits;
+        final boolean learnt;
+        double activity;
+
+        Clause(int[] lits, boolean learnt) {
+            this.lits = lits;
+            this.learnt = learnt;
+        }
+    }
+
+    private static final class Watches {
+        Clause[] items = new Clause[4];
+        int size;
+
+        void add(Clause clause) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = clause;
+        }
+    }
+
+    private final int numVars;
+    // Clauses watching each literal, visited when that literal becomes false
+    private final Watches[] watches;
+    private final List<Clause> learnts = new ArrayList<>();
+    private boolean ok = true;
+
+    // Assignment state, indexed by variable: -1 unassigned, 0 false, 1 true
+    private final int[] assigns;
+    private final int[] level;
+    private final Clause[] reason;
+    private final int[] polarity;
+    private final int[] trail;
+    private int trailSize;
+    private int[] trailLim = new int[16];
+    private int decisionLevel;
+    private int qhead;
+
+    // VSIDS
+    private final double[] activity;
+    private double varInc = 1.0;
+    private double clauseInc = 1.0;
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    // Scratch for conflict analysis
+    private final boolean[] seen;
+    private final int[] learntBuffer;
+    private final int[] analyzeBuffer;
+
+    private long conflictBudget = Long.MAX_VALUE;
+    private long conflicts;
+    private long decisions;
+
+    public CdclSolver(int numVars) {
+        this.numVars = numVars;
+        watches = new Watches[2 * numVars];
+        for (int i = 0; i < watches.length; i++) {
+            watches[i] = new Watches();
+        }
+        assigns = new int[numVars];
+        Arrays.fill(assigns, UNDEF);
+        level = new int[numVars];
+        reason = new Clause[numVars];
+        polarity = new int[numVars];
+        Arrays.fill(polarity, 1); // Branch on the negative literal first
+        trail = new int[numVars];
+        activity = new double[numVars];
+        heap = new int[numVars];
+        heapIndex = new int[numVars];
+        for (int v = 0; v < numVars; v++) {
+            heap[v] = v;
+            heapIndex[v] = v;
+        }
+        heapSize = numVars;
+        seen = new boolean[numVars];
+        learntBuffer = new int[numVars];
+        analyzeBuffer = new int[numVars];
+    }
+
+    public int getNumVars() {
+        return numVars;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Makes {@link #solve()} give up (returning false) after this many conflicts.
+     */
+    public void setConflictBudget(long budget) {
+        this.conflictBudget = budget;
+    }
+
+    /**
+     * Adds a clause of DIMACS literals. Must be called before {@link #solve()}.
+     * @return false if the formula is already known to be unsatisfiable
+     */
+    public boolean addClause(int... dimacs) {
+        if (!ok) return false;
+        int[] lits = new int[dimacs.length];
+        int size = 0;
+        for (int d : dimacs) {
+            int var = Math.abs(d) - 1;
+            if (var < 0 || var >= numVars) {
+                throw new IllegalArgumentException("Variable out of range: " + d);
+            }
+            int lit = 2 * var + (d < 0 ? 1 : 0);
+            int value = litValue(lit);
+            if (value == 1) return true; // Satisfied at the root
+            if (value == 0) continue;
+            boolean duplicate = false;
+            for (int i = 0; i < size; i++) {
+                if (lits[i] == lit) duplicate = true;
+                if (lits[i] == (lit ^ 1)) return true; // Tautology
+            }
+            if (!duplicate) lits[size++] = lit;
+        }
+
+        if (size == 0) {
+            ok = false;
+        } else if (size == 1) {
+            enqueue(lits[0], null);
+            ok = propagate() == null;
+        } else {
+            attach(new Clause(Arrays.copyOf(lits, size), false));
+        }
+        return ok;
+    }
+
+    /**
+     * @return true if a satisfying assignment was found, false if the formula is
+     *         unsatisfiable or the conflict budget ran out
+     */
+    public boolean solve() {
+        if (!ok || propagate() != null) {
+            ok = false;
+            return false;
+        }
+        for (int run = 1; ; run++) {
+            int status = search(RESTART_BASE * SudokuSolverCP.luby(run));
+            if (status == 1) return true;
+            if (status == 0) {
+                ok = false;
+                return false;
+            }
+            if (conflicts >= conflictBudget) return false;
+            SolverMetrics.increment(SolverMetrics.Count.RESTARTS);
+            cancelUntil(0);
+            reduceLearnts();
+        }
+    }
+
+    /**
+     * @param var a DIMACS variable number
+     * @return its value in the model found by the last successful {@link #solve()}
+     */
+    public boolean modelValue(int var) {
+        return assigns[var - 1] == 1;
+    }
+
+    /**
+     * @return 1 if satisfiable, 0 if unsatisfiable, -1 when the conflict limit is reached
+     */
+    private int search(long conflictLimit) {
+        long runConflicts = 0;
+        while (true) {
+            Clause conflict = propagate();
+            if (conflict != null) {
+                conflicts++;
+                runConflicts++;
+                SolverMetrics.increment(SolverMetrics.Count.BACKTRACKS);
+                if (decisionLevel == 0) return 0;
+
+                int size = analyze(conflict);
+                int backjumpLevel = 0;
+                for (int i = 1; i < size; i++) {
+                    if (level[learntBuffer[i] >> 1] > level[learntBuffer[1] >> 1]) {
+                        int temp = learntBuffer[1];
+                        learntBuffer[1] = learntBuffer[i];
+                        learntBuffer[i] = temp;
+                    }
+                }
+                if (size > 1) backjumpLevel = level[learntBuffer[1] >> 1];
+                cancelUntil(backjumpLevel);
+
+                if (size == 1) {
+                    enqueue(learntBuffer[0], null);
+                } else {
+                    Clause learnt = new Clause(Arrays.copyOf(learntBuffer, size), true);
+                    attach(learnt);
+                    learnts.add(learnt);
+                    bumpClause(learnt);
+                    enqueue(learntBuffer[0], learnt);
+                }
+                varInc /= VAR_DECAY;
+                clauseInc /= CLAUSE_DECAY;
+            } else {
+                if (runConflicts >= conflictLimit || conflicts >= conflictBudget) return UNDEF;
+                int next = pickBranchLiteral();
+                if (next < 0) return 1;
+                decisions++;
+                SolverMetrics.increment(SolverMetrics.Count.NODES);
+                if (decisionLevel == trailLim.length) trailLim = Arrays.copyOf(trailLim, decisionLevel * 2);
+                trailLim[decisionLevel++] = trailSize;
+                enqueue(next, null);
+            }
+        }
+    }
+
+    private Clause propagate() {
+        while (qhead < trailSize) {
+            int falseLit = trail[qhead++] ^ 1;
+            Watches list = watches[falseLit];
+            Clause[] items = list.items;
+            int i = 0;
+            int j = 0;
+            int size = list.size;
+
+            while (i < size) {
+                Clause clause = items[i++];
+                int[] lits = clause.lits;
+                // Keep the false literal in slot 1
+                if (lits[0] == falseLit) {
+                    lits[0] = lits[1];
+                    lits[1] = falseLit;
+                }
+                if (litValue(lits[0]) == 1) {
+                    items[j++] = clause;
+                    continue;
+                }
+
+                boolean moved = false;
+                for (int k = 2; k < lits.length; k++) {
+                    if (litValue(lits[k]) != 0) {
+                        lits[1] = lits[k];
+                        lits[k] = falseLit;
+                        watches[lits[1]].add(clause);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+
+                items[j++] = clause;
+                if (litValue(lits[0]) == 0) {
+                    while (i < size) items[j++] = items[i++];
+                    list.size = j;
+                    qhead = trailSize;
+                    return clause;
+                }
+                enqueue(lits[0], clause);
+            }
+            list.size = j;
+        }
+        return null;
+    }
+
+    /**
+     * First-UIP conflict analysis. Leaves the learnt clause in {@code learntBuffer}
+     * with the asserting literal first.
+     * @return the learnt clause's length
+     */
+    private int analyze(Clause conflict) {
+        int size = 1;
+        int pathCount = 0;
+        int uip = -1;
+        int index = trailSize - 1;
+        Clause clause = conflict;
+
+        do {
+            if (clause.learnt) bumpClause(clause);
+            int[] lits = clause.lits;
+            for (int k = uip < 0 ? 0 : 1; k < lits.length; k++) {
+                int var = lits[k] >> 1;
+                if (!seen[var] && level[var] > 0) {
+                    bumpVar(var);
+                    seen[var] = true;
+                    if (level[var] >= decisionLevel) {
+                        pathCount++;
+                    } else {
+                        learntBuffer[size++] = lits[k];
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) index--;
+            uip = trail[index--];
+            clause = reason[uip >> 1];
+            seen[uip >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learntBuffer[0] = uip ^ 1;
+
+        // Drop literals implied by the rest of the clause
+        System.arraycopy(learntBuffer, 0, analyzeBuffer, 0, size);
+        int kept = 1;
+        for (int i = 1; i < size; i++) {
+            if (!isRedundant(analyzeBuffer[i] >> 1)) learntBuffer[kept++] = analyzeBuffer[i];
+        }
+        for (int i = 1; i < size; i++) {
+            seen[analyzeBuffer[i] >> 1] = false;
+        }
+        return kept;
+    }
+
+    private boolean isRedundant(int var) {
+        Clause why = reason[var];
+        if (why == null) return false;
+        for (int k = 1; k < why.lits.length; k++) {
+            int other = why.lits[k] >> 1;
+            if (!seen[other] && level[other] > 0) return false;
+        }
+        return true;
+    }
+
+    private int pickBranchLiteral() {
+        while (heapSize > 0) {
+            int var = heapPop();
+            if (assigns[var] == UNDEF) return 2 * var + polarity[var];
+        }
+        return -1;
+    }
+
+    private void enqueue(int lit, Clause why) {
+        int var = lit >> 1;
+        assigns[var] = (lit & 1) ^ 1;
+        level[var] = decisionLevel;
+        reason[var] = why;
+        trail[trailSize++] = lit;
+    }
+
+    private void cancelUntil(int targetLevel) {
+        if (decisionLevel <= targetLevel) return;
+        int bound = trailLim[targetLevel];
+        for (int i = trailSize - 1; i >= bound; i--) {
+            int var = trail[i] >> 1;
+            polarity[var] = trail[i] & 1;
+            assigns[var] = UNDEF;
+            reason[var] = null;
+            if (heapIndex[var] < 0) heapInsert(var);
+        }
+        trailSize = bound;
+        qhead = bound;
+        decisionLevel = targetLevel;
+    }
+
+    private int litValue(int lit) {
+        int value = assigns[lit >> 1];
+        return value == UNDEF ? UNDEF : value ^ (lit & 1);
+    }
+
+    private void attach(Clause clause) {
+        watches[clause.lits[0]].add(clause);
+        watches[clause.lits[1]].add(clause);
+    }
+
+    /**
+     * Keeps the more active half of the learnt clauses. Only called at level 0,
+     * where no learnt clause is the reason for a literal still needed by analysis.
+     */
+    private void reduceLearnts() {
+        if (learnts.size() < 2 * numVars) return;
+        learnts.sort((a, b) -> Double.compare(b.activity, a.activity));
+        Set<Clause> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = learnts.size() / 2; i < learnts.size(); i++) {
+            if (learnts.get(i).lits.length > 2) removed.add(learnts.get(i));
+        }
+        learnts.removeAll(removed);
+        for (Watches list : watches) {
+            int j = 0;
+            for (int i = 0; i < list.size; i++) {
+                if (!removed.contains(list.items[i])) list.items[j++] = list.items[i];
+            }
+            Arrays.fill(list.items, j, list.size, null);
+            list.size = j;
+        }
+        for (int v = 0; v < numVars; v++) {
+            if (reason[v] != null && removed.contains(reason[v])) reason[v] = null;
+        }
+    }
+
+    private void bumpVar(int var) {
+        if ((activity[var] += varInc) > 1e100) {
+            for (int v = 0; v < numVars; v++) {
+                activity[v] *= 1e-100;
+            }
+            varInc *= 1e-100;
+        }
+        if (heapIndex[var] >= 0) siftUp(heapIndex[var]);
+    }
+
+    private void bumpClause(Clause clause) {
+        if ((clause.activity += clauseInc) > 1e20) {
+            for (Clause learnt : learnts) {
+                learnt.activity *= 1e-20;
+            }
+            clauseInc *= 1e-20;
+        }
+    }
+
+    // Binary max-heap of variables ordered by activity
+
+    private void heapInsert(int var) {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int heapPop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int var = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (activity[heap[parent]] >= activity[var]) break;
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = var;
+        heapIndex[var] = i;
+    }
+
+    private void siftDown(int i) {
+        int var = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) child++;
+            if (activity[heap[child]] <= activity[var]) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = var;
+        heapIndex[var] = i;
+    }
+}
@@ -0,0 +1,80 @@
+package AICp;
+
+/**
+ * Per-unit digit counts for a board being edited, updated one cell at a time so
+ * conflicts and pencil-mark candidates can be read without rescanning the board.
+ */
+public final class ConflictTracker {
+    private static final int SIZE = 9;
+    private static final int ALL_VALUES = 0x3FE;
+
+    private final int[][] values = new int[SIZE][SIZE];
+    // Counts indexed [unit][digit]
+    private final int[][] rowCounts = new int[SIZE][SIZE + 1];
+    private final int[][] colCounts = new int[SIZE][SIZE + 1];
+    private final int[][] boxCounts = new int[SIZE][SIZE + 1];
+    // Bit d is set while digit d appears in the unit
+    private final int[] rowUsed = new int[SIZE];
+    private final int[] colUsed = new int[SIZE];
+    private final int[] boxUsed = new int[SIZE];
+    private int duplicates;
+
+    public int get(int row, int col) {
+        return values[row][col];
+    }
+
+    /**
+     * Sets a cell, 0 clearing it.
+     *
+     * @return true if the value changed
+     */
+    public boolean set(int row, int col, int value) {
+        int old = values[row][col];
+        if (old == value) return false;
+        int box = (row / 3) * 3 + col / 3;
+        if (old != 0) {
+            duplicates -= remove(rowCounts[row], rowUsed, row, old);
+            duplicates -= remove(colCounts[col], colUsed, col, old);
+            duplicates -= remove(boxCounts[box], boxUsed, box, old);
+        }
+        if (value != 0) {
+            duplicates += add(rowCounts[row], rowUsed, row, value);
+            duplicates += add(colCounts[col], colUsed, col, value);
+            duplicates += add(boxCounts[box], boxUsed, box, value);
+        }
+        values[row][col] = value;
+        return true;
+    }
+
+    /**
+     * @return true if the cell's digit also appears elsewhere in its row, column or box
+     */
+    public boolean isConflict(int row, int col) {
+        int value = values[row][col];
+        return value != 0 && (rowCounts[row][value] > 1 || colCounts[col][value] > 1
+                || boxCounts[(row / 3) * 3 + col / 3][value] > 1);
+    }
+
+    public boolean hasConflicts() {
+        return duplicates > 0;
+    }
+
+    /**
+     * @return the digits not yet used by the cell's peers, as bits 1-9
+     */
+    public int candidates(int row, int col) {
+        return ALL_VALUES & ~(rowUsed[row] | colUsed[col] | boxUsed[(row / 3) * 3 + col / 3]);
+    }
+
+    private static int add(int[] counts, int[] used, int unit, int value) {
+        used[unit] |= 1 << value;
+        return counts[value]++ > 0 ? 1 : 0;
+    }
+
+    private static int remove(int[] counts, int[] used, int unit, int value) {
+        if (--counts[value] == 0) {
+            used[unit] &= ~(1 << value);
+        }
+        return counts[value] > 0 ? 1 : 0;
+    }
+}
@@ -0,0 +1,231 @@
+package AICp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Cross-checks the engines against each other on the same puzzles and reports
+ * wrong answers and unusually slow solves.
+ *
+ * Every (puzzle, engine) pair is solved in parallel with the per-puzzle seed
+ * {@link EngineBenchmark} uses. A solve is wrong if it claims success with an
+ * invalid grid or changed givens, if it throws, or if a complete engine (one
+ * that searches exhaustively) fails a puzzle that some engine solved. A solve
+ * is an outlier if it takes more than {@code --factor} times its engine's
+ * median, and at least {@code --min-ms} longer.
+ *
+ * Every error and outlier is written to the report as a JSON line holding the
+ * engine, puzzle, seed and solve metrics. To reproduce one, solve the puzzle
+ * alone with the same seed, for example
+ * {@code --puzzles 0 --corpus one.txt --seed S --engines NAME}. The verifier
+ * exits with status 1 if any solve was wrong.
+ *
+ * Usage: {@code java AICp.DifferentialVerifier [--puzzles N] [--corpus file]...
+ * [--engines NAME,NAME] [--seed S] [--factor F] [--min-ms MS] [--report file]}
+ */
+public class DifferentialVerifier {
+    private static final int SIZE = 9;
+    private static final Set<SudokuEngine> COMPLETE = EnumSet.of(SudokuEngine.BACKTRACKING,
+            SudokuEngine.CONSTRAINT_PROGRAMMING, SudokuEngine.MRV, SudokuEngine.SAT);
+
+    private static final class Result {
+        final int puzzle;
+        final SudokuEngine engine;
+        final long seed;
+        SolverMetrics.Snapshot snapshot;
+        String error;
+
+        Result(int puzzle, SudokuEngine engine, long seed) {
+            this.puzzle = puzzle;
+            this.engine = engine;
+            this.seed = seed;
+        }
+
+        boolean isSolved() {
+            return error == null && snapshot.isSolved();
+        }
+    }
+
+    private final List<SudokuEngine> engines;
+    private final List<PackedBoard> puzzles;
+    private final long seed;
+
+    public DifferentialVerifier(List<SudokuEngine> engines, List<PackedBoard> puzzles, long seed) {
+        this.engines = engines;
+        this.puzzles = puzzles;
+        this.seed = seed;
+    }
+
+    private Result solve(int task) {
+        int i = task / engines.size();
+        Result result = new Result(i, engines.get(task % engines.size()), seed + i * 0x9E3779B97F4A7C15L);
+        int[][] puzzle = puzzles.get(i).toArray();
+        int[][] grid = puzzles.get(i).toArray();
+        SolverMetrics.labelPuzzle(puzzles.get(i));
+        try {
+            result.snapshot = result.engine.solveMeasured(grid, result.seed);
+        } catch (RuntimeException | StackOverflowError e) {
+            result.error = "threw " + e;
+            return result;
+        }
+        if (result.snapshot.isSolved()) {
+            if (!BoardBatchEvaluator.isSolved(grid)) {
+                result.error = "reported an invalid solution " + PackedBoard.fromArray(grid);
+            } else if (!keepsGivens(puzzle, grid)) {
+                result.error = "changed the givens in " + PackedBoard.fromArray(grid);
+            }
+        }
+        return result;
+    }
+
+    private static boolean keepsGivens(int[][] puzzle, int[][] grid) {
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (puzzle[r][c] != 0 && puzzle[r][c] != grid[r][c]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs every solve, prints a per-engine summary and writes errors and outliers
+     * to the report.
+     *
+     * @return the number of wrong solves
+     */
+    public int verify(double factor, long minNanos, Writer report) throws IOException {
+        Result[] results = IntStream.range(0, puzzles.size() * engines.size()).parallel()
+                .mapToObj(this::solve)
+                .toArray(Result[]::new);
+
+        // A puzzle some engine solved correctly must be solved by every complete engine
+        boolean[] solvable = new boolean[puzzles.size()];
+        for (Result result : results) {
+            if (result.isSolved()) solvable[result.puzzle] = true;
+        }
+        for (Result result : results) {
+            if (result.error == null && !result.snapshot.isSolved()
+                    && COMPLETE.contains(result.engine) && solvable[result.puzzle]) {
+                result.error = "missed a solution other engines found";
+            }
+        }
+
+        int errors = 0;
+        System.out.printf("%-24s %7s %7s %7s %10s %9s%n", "Engine", "Runs", "Solved", "Errors", "Median ms", "Outliers");
+        for (SudokuEngine engine : engines) {
+            List<Result> runs = new ArrayList<>();
+            for (Result result : results) {
+                if (result.engine == engine) runs.add(result);
+            }
+            long median = medianNanos(runs);
+            int solved = 0;
+            int engineErrors = 0;
+            int outliers = 0;
+            for (Result result : runs) {
+                if (result.isSolved()) solved++;
+                if (result.error != null) {
+                    engineErrors++;
+                    report(report, result, result.error, median);
+                } else {
+                    long elapsed = result.snapshot.getElapsedNanos();
+                    if (elapsed > factor * median && elapsed - median >= minNanos) {
+                        outliers++;
+                        report(report, result, null, median);
+                    }
+                }
+            }
+            errors += engineErrors;
+            System.out.printf("%-24s %7d %7d %7d %10.3f %9d%n",
+                    engine.getDisplayName(), runs.size(), solved, engineErrors, median / 1e6, outliers);
+        }
+        return errors;
+    }
+
+    private static long medianNanos(List<Result> runs) {
+        long[] nanos = runs.stream()
+                .filter(result -> result.snapshot != null)
+                .mapToLong(result -> result.snapshot.getElapsedNanos())
+                .sorted()
+                .toArray();
+        return nanos.length == 0 ? 0 : nanos[nanos.length / 2];
+    }
+
+    private void report(Writer report, Result result, String error, long median) throws IOException {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"kind\":\"").append(error != null ? "error" : "outlier").append('"')
+          .append(",\"engine\":\"").append(result.engine.name()).append('"')
+          .append(",\"puzzle\":\"").append(puzzles.get(result.puzzle)).append('"')
+          .append(",\"seed\":").append(result.seed)
+          .append(",\"medianNanos\":").append(median);
+        if (error != null) {
+            sb.append(",\"error\":\"").append(error.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        if (result.snapshot != null) {
+            sb.append(",\"metrics\":").append(result.snapshot.toJson());
+        }
+        report.write(sb.append("}\n").toString());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int puzzlesPerLevel = 10;
+        List<Path> corpora = new ArrayList<>();
+        List<SudokuEngine> engines = new ArrayList<>(Arrays.asList(SudokuEngine.values()));
+        long seed = ThreadLocalRandom.current().nextLong();
+        double factor = 10.0;
+        long minNanos = 1_000_000;
+        Path reportPath = Paths.get("verify-report.jsonl");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--puzzles":
+                    puzzlesPerLevel = Integer.parseInt(args[++i]);
+                    break;
+                case "--corpus":
+                    corpora.add(Paths.get(args[++i]));
+                    break;
+                case "--engines":
+                    engines.clear();
+                    for (String name : args[++i].split(",")) {
+                        engines.add(SudokuEngine.fromName(name.trim()));
+                    }
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--factor":
+                    factor = Double.parseDouble(args[++i]);
+                    break;
+                case "--min-ms":
+                    minNanos = (long) (Double.parseDouble(args[++i]) * 1e6);
+                    break;
+                case "--report":
+                    reportPath = Paths.get(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Seed: " + seed);
+        List<PackedBoard> puzzles = new ArrayList<>();
+        for (Path corpus : corpora) {
+            puzzles.addAll(EngineBenchmark.loadCorpus(corpus));
+        }
+        puzzles.addAll(EngineBenchmark.generate(puzzlesPerLevel, seed));
+
+        int errors;
+        try (Writer report = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            errors = new DifferentialVerifier(engines, puzzles, seed).verify(factor, minNanos, report);
+        }
+        System.out.println("Wrote " + reportPath);
+        if (errors > 0) {
+            System.out.println(errors + " wrong solves");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package AICp;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs every engine over the same puzzles and reports per-engine timings and
+ * search counters.
+ *
+ * Usage: {@code java AICp.EngineBenchmark [--puzzles N] [--corpus file]
+ * [--engines NAME,NAME] [--out results.jsonl] [--seed S] [--slo-ms MS]}
+ *
+ * Without a corpus, N puzzles per difficulty level are generated. Every solve
+ * is appended to the JSON-lines file given by {@code --out}, labelled with its
+ * puzzle so {@link EngineSelector} can train on the results. Puzzle generation
+ * and every stochastic engine are seeded from {@code --seed}, which is random
+ * unless given and is printed so a run can be repeated exactly.
+ *
+ * With {@code --slo-ms} the run is a latency check: it exits with status 1 if
+ * any engine's 99th percentile solve time exceeds the objective. Run it against
+ * a stress corpus from {@link StressCorpusBuilder} to check worst cases.
+ */
+public class EngineBenchmark {
+    private static final int SIZE = 9;
+
+    public static void main(String[] args) throws IOException {
+        int puzzlesPerLevel = 5;
+        Path corpus = null;
+        Path out = null;
+        long seed = ThreadLocalRandom.current().nextLong();
+        long sloNanos = Long.MAX_VALUE;
+        List<SudokuEngine> engines = new ArrayList<>(Arrays.asList(SudokuEngine.values()));
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--puzzles":
+                    puzzlesPerLevel = Integer.parseInt(args[++i]);
+                    break;
+                case "--corpus":
+                    corpus = Paths.get(args[++i]);
+                    break;
+                case "--out":
+                    out = Paths.get(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--slo-ms":
+                    sloNanos = (long) (Double.parseDouble(args[++i]) * 1e6);
+                    break;
+                case "--engines":
+                    engines.clear();
+                    for (String name : args[++i].split(",")) {
+                        engines.add(SudokuEngine.fromName(name.trim()));
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Seed: " + seed);
+        List<PackedBoard> puzzles = corpus != null ? loadCorpus(corpus) : generate(puzzlesPerLevel, seed);
+        JsonLinesMetricsExporter exporter = out != null ? new JsonLinesMetricsExporter(out) : null;
+        if (exporter != null) SolverMetrics.addListener(exporter);
+        boolean metSlo;
+        try {
+            metSlo = run(engines, puzzles, seed, sloNanos);
+        } finally {
+            if (exporter != null) {
+                SolverMetrics.removeListener(exporter);
+                exporter.close();
+            }
+        }
+        if (!metSlo) {
+            System.out.printf("Latency objective of %.3f ms p99 missed%n", sloNanos / 1e6);
+            System.exit(1);
+        }
+    }
+
+    static List<PackedBoard> generate(int puzzlesPerLevel, long seed) {
+        SudokuLogicBackTracking generator = new SudokuLogicBackTracking(seed);
+        List<PackedBoard> puzzles = new ArrayList<>();
+        for (int level = 0; level < 3; level++) {
+            for (int i = 0; i < puzzlesPerLevel; i++) {
+                puzzles.add(PackedBoard.fromArray(generator.generatePuzzle(level)));
+            }
+        }
+        return puzzles;
+    }
+
+    static List<PackedBoard> loadCorpus(Path path) throws IOException {
+        List<PackedBoard> puzzles = new ArrayList<>();
+        try (PuzzleCorpusReader reader = new PuzzleCorpusReader(path)) {
+            PackedBoard puzzle = new PackedBoard();
+            while (reader.next(puzzle)) {
+                puzzles.add(puzzle.copy());
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Every engine solves puzzle i with the same seed derived from {@code seed} and i.
+     *
+     * @return false if some engine's 99th percentile time exceeds {@code sloNanos}
+     */
+    static boolean run(List<SudokuEngine> engines, List<PackedBoard> puzzles, long seed, long sloNanos) {
+        int[][] grid = new int[SIZE][SIZE];
+        long[] latencies = new long[puzzles.size()];
+        boolean metSlo = true;
+        System.out.printf("%-24s %7s %10s %10s %10s %12s %12s%n",
+                "Engine", "Solved", "Mean ms", "P99 ms", "Max ms", "Mean nodes", "Mean iters");
+        for (SudokuEngine engine : engines) {
+            int solved = 0;
+            long totalNanos = 0;
+            long nodes = 0;
+            long iterations = 0;
+            for (int i = 0; i < puzzles.size(); i++) {
+                puzzles.get(i).copyTo(grid);
+                SolverMetrics.labelPuzzle(puzzles.get(i));
+                SolverMetrics.Snapshot snapshot = engine.solveMeasured(grid, seed + i * 0x9E3779B97F4A7C15L);
+                if (snapshot.isSolved()) solved++;
+                latencies[i] = snapshot.getElapsedNanos();
+                totalNanos += snapshot.getElapsedNanos();
+                nodes += snapshot.get(SolverMetrics.Count.NODES);
+                iterations += snapshot.get(SolverMetrics.Count.ITERATIONS)
+                        + snapshot.get(SolverMetrics.Count.GENERATIONS);
+            }
+            int n = Math.max(1, puzzles.size());
+            Arrays.sort(latencies);
+            long p99 = latencies.length == 0 ? 0 : latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+            long maxNanos = latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+            boolean withinSlo = p99 <= sloNanos;
+            metSlo &= withinSlo;
+            System.out.printf("%-24s %3d/%-3d %10.3f %10.3f %10.3f %12.1f %12.1f%s%n",
+                    engine.getDisplayName(), solved, puzzles.size(), totalNanos / 1e6 / n, p99 / 1e6,
+                    maxNanos / 1e6, (double) nodes / n, (double) iterations / n, withinSlo ? "" : "  SLO MISSED");
+        }
+        return metSlo;
+    }
+}
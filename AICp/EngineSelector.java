@@ -0,0 +1,184 @@
+package AICp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Picks the engine expected to solve a puzzle fastest from a table indexed by
+ * {@link PuzzleFeatures#bucket()}. It backs {@link SudokuEngine#AUTO}.
+ *
+ * Tables are properties files mapping bucket names to engine names. The global
+ * selector loads {@code -Dsudoku.engineTable=<file>}, or
+ * {@code engine-table.properties} in the working directory, and falls back to SAT
+ * for every bucket the file does not list. Train a table from benchmark results:
+ * <pre>
+ * java AICp.EngineBenchmark --puzzles 50 --out results.jsonl
+ * java AICp.EngineSelector results.jsonl engine-table.properties
+ * </pre>
+ */
+public final class EngineSelector {
+    public static final String DEFAULT_TABLE = "engine-table.properties";
+    private static final SudokuEngine DEFAULT_ENGINE = SudokuEngine.SAT;
+
+    private final SudokuEngine[] table = new SudokuEngine[PuzzleFeatures.BUCKETS];
+
+    /**
+     * Creates a selector that picks the default engine for every bucket.
+     */
+    public EngineSelector() {
+        Arrays.fill(table, DEFAULT_ENGINE);
+    }
+
+    private static final class Global {
+        static final EngineSelector INSTANCE = loadGlobal();
+    }
+
+    public static EngineSelector global() {
+        return Global.INSTANCE;
+    }
+
+    private static EngineSelector loadGlobal() {
+        Path path = Paths.get(System.getProperty("sudoku.engineTable", DEFAULT_TABLE));
+        if (!Files.isRegularFile(path)) return new EngineSelector();
+        try {
+            return load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Engine table unavailable: " + e.getMessage());
+            return new EngineSelector();
+        }
+    }
+
+    public static EngineSelector load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        EngineSelector selector = new EngineSelector();
+        for (String name : properties.stringPropertyNames()) {
+            int bucket = PuzzleFeatures.bucketOf(name);
+            if (bucket < 0) throw new IllegalArgumentException("Unknown bucket in " + path + ": " + name);
+            selector.set(bucket, SudokuEngine.fromName(properties.getProperty(name).trim()));
+        }
+        return selector;
+    }
+
+    public void save(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("# Fastest engine per puzzle feature bucket, see AICp.PuzzleFeatures\n");
+            for (int bucket = 0; bucket < PuzzleFeatures.BUCKETS; bucket++) {
+                out.write(PuzzleFeatures.bucketName(bucket) + "=" + table[bucket].name() + "\n");
+            }
+        }
+    }
+
+    public SudokuEngine get(int bucket) {
+        return table[bucket];
+    }
+
+    public void set(int bucket, SudokuEngine engine) {
+        if (engine == SudokuEngine.AUTO) throw new IllegalArgumentException("AUTO cannot select itself");
+        table[bucket] = engine;
+    }
+
+    public SudokuEngine select(int[][] board) {
+        return table[PuzzleFeatures.of(board).bucket()];
+    }
+
+    /**
+     * Solves with the engine the global table picks for the board.
+     */
+    static boolean solve(int[][] board, long seed) {
+        return global().select(board).solveUnmeasured(board, seed);
+    }
+
+    /**
+     * Builds a table from JSON lines written by {@link JsonLinesMetricsExporter}
+     * for solves labelled with their puzzle, as {@link EngineBenchmark} does. Each
+     * bucket gets the engine with the highest solve rate, ties going to the lowest
+     * mean time; buckets without results keep the default.
+     */
+    public static EngineSelector train(Path results) throws IOException {
+        SudokuEngine[] engines = SudokuEngine.values();
+        long[][] runs = new long[PuzzleFeatures.BUCKETS][engines.length];
+        long[][] solved = new long[PuzzleFeatures.BUCKETS][engines.length];
+        long[][] nanos = new long[PuzzleFeatures.BUCKETS][engines.length];
+
+        try (BufferedReader in = Files.newBufferedReader(results, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String puzzle = field(line, "puzzle");
+                String engineName = field(line, "engine");
+                String elapsed = field(line, "elapsedNanos");
+                if (puzzle == null || engineName == null || elapsed == null) continue;
+                SudokuEngine engine;
+                try {
+                    engine = SudokuEngine.fromName(engineName);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (engine == SudokuEngine.AUTO) continue;
+                int bucket = PuzzleFeatures.of(PackedBoard.fromString(puzzle).toArray()).bucket();
+                int e = engine.ordinal();
+                runs[bucket][e]++;
+                if ("true".equals(field(line, "solved"))) solved[bucket][e]++;
+                nanos[bucket][e] += Long.parseLong(elapsed);
+            }
+        }
+
+        EngineSelector selector = new EngineSelector();
+        for (int bucket = 0; bucket < PuzzleFeatures.BUCKETS; bucket++) {
+            int best = -1;
+            for (int e = 0; e < engines.length; e++) {
+                if (runs[bucket][e] == 0) continue;
+                if (best < 0 || isBetter(bucket, e, best, runs, solved, nanos)) best = e;
+            }
+            if (best >= 0) selector.set(bucket, engines[best]);
+        }
+        return selector;
+    }
+
+    private static boolean isBetter(int bucket, int e, int best, long[][] runs, long[][] solved, long[][] nanos) {
+        // Compare solve rates and mean times by cross-multiplying the counts
+        long rate = solved[bucket][e] * runs[bucket][best];
+        long bestRate = solved[bucket][best] * runs[bucket][e];
+        if (rate != bestRate) return rate > bestRate;
+        return (double) nanos[bucket][e] / runs[bucket][e] < (double) nanos[bucket][best] / runs[bucket][best];
+    }
+
+    /**
+     * @return the value of a top-level field of a flat JSON object, without quotes
+     */
+    private static String field(String json, String name) {
+        String key = "\"" + name + "\":";
+        int start = json.indexOf(key);
+        if (start < 0) return null;
+        start += key.length();
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        String value = json.substring(start, end).trim();
+        if (value.length() >= 2 && value.charAt(0) == '"') value = value.substring(1, value.length() - 1);
+        return value;
+    }
+
+    /**
+     * Usage: {@code java AICp.EngineSelector <results.jsonl> [table.properties]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java AICp.EngineSelector <results.jsonl> [table.properties]");
+            System.exit(2);
+        }
+        Path out = Paths.get(args.length > 1 ? args[1] : DEFAULT_TABLE);
+        EngineSelector selector = train(Paths.get(args[0]));
+        selector.save(out);
+        for (int bucket = 0; bucket < PuzzleFeatures.BUCKETS; bucket++) {
+            System.out.printf("%-10s %s%n", PuzzleFeatures.bucketName(bucket), selector.get(bucket).getDisplayName());
+        }
+        System.out.println("Wrote " + out);
+    }
+}
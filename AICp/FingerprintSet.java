@@ -0,0 +1,89 @@
+package AICp;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of 64-bit fingerprints stored in a single long array,
+ * about 11 bytes per entry at the maximum load factor. Not thread-safe.
+ */
+public class FingerprintSet {
+    private static final long EMPTY = 0L;
+    private static final long ZERO_SUBSTITUTE = 0x8000000000000001L;
+    private static final double MAX_LOAD = 0.75;
+
+    private long[] slots;
+    private int size;
+    private int resizeAt;
+
+    public FingerprintSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        slots = new long[capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * @return true if the fingerprint was not already present
+     */
+    public boolean add(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_SUBSTITUTE : fingerprint;
+        int mask = slots.length - 1;
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+        slots[index] = key;
+        if (++size > resizeAt) grow();
+        return true;
+    }
+
+    public boolean contains(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_SUBSTITUTE : fingerprint;
+        int mask = slots.length - 1;
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == key) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the fingerprints in no particular order
+     */
+    public long[] toArray() {
+        long[] keys = new long[size];
+        int count = 0;
+        for (long key : slots) {
+            if (key != EMPTY) keys[count++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Removes every fingerprint, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length << 1];
+        resizeAt = (int) (slots.length * MAX_LOAD);
+        int mask = slots.length - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int index = (int) (key ^ (key >>> 32)) & mask;
+            while (slots[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = key;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package AICp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Writes one JSON object per finished solve to a file. Register it with
+ * {@link SolverMetrics#addListener} and close it when done.
+ */
+public class JsonLinesMetricsExporter implements SolverMetrics.Listener, Closeable {
+    private final Writer out;
+
+    public JsonLinesMetricsExporter(Path path) throws IOException {
+        this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void onSolve(SolverMetrics.Snapshot snapshot) {
+        try {
+            out.write(snapshot.toJson());
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
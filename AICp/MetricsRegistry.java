@@ -0,0 +1,137 @@
+package AICp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small stand-in for a Micrometer {@code MeterRegistry}: named counters and
+ * timers with tags, safe to update from any thread. Solve snapshots are merged
+ * in as {@code sudoku.solver.*} meters tagged with the engine name, so a real
+ * registry can later be bridged by walking {@link #getCounters()} and
+ * {@link #getTimers()}.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param tags alternating tag keys and values
+     */
+    public Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(meterId(name, tags), Counter::new);
+    }
+
+    public Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(meterId(name, tags), Timer::new);
+    }
+
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    public Map<String, Timer> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    public void clear() {
+        counters.clear();
+        timers.clear();
+    }
+
+    void record(SolverMetrics.Snapshot snapshot) {
+        String engine = snapshot.getEngine();
+        timer("sudoku.solver.solve", "engine", engine, "solved", String.valueOf(snapshot.isSolved()))
+                .record(snapshot.getElapsedNanos());
+        for (SolverMetrics.Count count : SolverMetrics.Count.values()) {
+            long value = snapshot.get(count);
+            if (value != 0) {
+                counter("sudoku.solver." + count.name().toLowerCase(), "engine", engine).increment(value);
+            }
+        }
+        for (SolverMetrics.Phase phase : SolverMetrics.Phase.values()) {
+            long nanos = snapshot.getPhaseNanos(phase);
+            if (nanos != 0) {
+                timer("sudoku.solver.phase", "engine", engine, "phase", phase.name().toLowerCase()).record(nanos);
+            }
+        }
+    }
+
+    private static String meterId(String name, String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be key/value pairs");
+        }
+        StringBuilder sb = new StringBuilder(name);
+        for (int i = 0; i < tags.length; i += 2) {
+            sb.append(i == 0 ? '{' : ',').append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        if (tags.length > 0) sb.append('}');
+        return sb.toString();
+    }
+
+    public static final class Counter {
+        private final String id;
+        private final LongAdder count = new LongAdder();
+
+        Counter(String id) {
+            this.id = id;
+        }
+
+        public void increment(long amount) {
+            count.add(amount);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    public static final class Timer {
+        private final String id;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Timer(String id) {
+            this.id = id;
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long maxNanos() {
+            return maxNanos.get();
+        }
+
+        public double meanNanos() {
+            long n = count();
+            return n == 0 ? 0.0 : (double) totalNanos() / n;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+}
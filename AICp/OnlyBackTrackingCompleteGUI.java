@@ -10,44 +10,22 @@ import AICp.SudokuSolverCP;
 public class OnlyBackTrackingCompleteGUI extends JFrame {
     private static final int SIZE = 9;
     private static final int SUBGRID = 3;
-    private JTextField[][] cells = new JTextField[SIZE][SIZE];
+    private final BoardComponent boardView = new BoardComponent();
+    private final JPanel buttonPanel = new JPanel();
     private int[][] board = new int[SIZE][SIZE];
+    private final Random rand = new Xoshiro256();
 
     public OnlyBackTrackingCompleteGUI() {
         setTitle("Sudoku Solver & Generator");
         setSize(700, 700);
         setLayout(new BorderLayout());
-        createBoard();
+        add(boardView, BorderLayout.CENTER);
         addButtons();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setVisible(true);
     }
 
-    private void createBoard() {
-        JPanel gridPanel = new JPanel();
-        gridPanel.setLayout(new GridLayout(SIZE, SIZE));
-        
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j] = new JTextField();
-                cells[i][j].setHorizontalAlignment(JTextField.CENTER);
-                cells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
-                
-                // Set background color for 3x3 grids
-                if ((i / SUBGRID + j / SUBGRID) % 2 == 0) {
-                    cells[i][j].setBackground(new Color(173, 216, 230)); // Light blue
-                } else {
-                    cells[i][j].setBackground(Color.WHITE); // White
-                }
-                
-                gridPanel.add(cells[i][j]);
-            }
-        }
-        add(gridPanel, BorderLayout.CENTER);
-    }
-
     private void addButtons() {
-        JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.setBackground(Color.LIGHT_GRAY); // Background color for the button panel
 
@@ -61,6 +39,11 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
         generateButton.setPreferredSize(new Dimension(150, 50));
         generateButton.addActionListener(e -> generatePuzzle());
 
+        JButton visualiseButton = new JButton("Visualise");
+        visualiseButton.setFont(new Font("Arial", Font.BOLD, 16));
+        visualiseButton.setPreferredSize(new Dimension(150, 50));
+        visualiseButton.addActionListener(e -> visualiseSolve());
+
         JButton validateButton = new JButton("Validate");
         validateButton.setFont(new Font("Arial", Font.BOLD, 16));
         validateButton.setPreferredSize(new Dimension(150, 50));
@@ -73,6 +56,7 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
 
         buttonPanel.add(generateButton);
         buttonPanel.add(solveButton);
+        buttonPanel.add(visualiseButton);
         buttonPanel.add(validateButton);
         buttonPanel.add(hintButton);
 
@@ -82,17 +66,32 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
     public void solveSudoku() {
         readBoard();
         if (backtrackingSolve(board)) {  // Use the class name
-            updateBoard();
+            boardView.fill(board);
             JOptionPane.showMessageDialog(this, "Solved!");
         } else {
             JOptionPane.showMessageDialog(this, "No solution exists.");
         }
     }
-    
+
+    // Replays every placement and backtrack on the board while the search runs
+    private void visualiseSolve() {
+        readBoard();
+        setButtonsEnabled(false);
+        SearchVisualiser.start(boardView, this::backtrackingSolve, board, solved -> {
+            setButtonsEnabled(true);
+            JOptionPane.showMessageDialog(this, solved ? "Solved!" : "No solution exists.");
+        });
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        for (Component button : buttonPanel.getComponents()) {
+            button.setEnabled(enabled);
+        }
+    }
 
     private void generatePuzzle() {
         board = generateValidSudoku(getDifficulty());
-        updateBoard();
+        boardView.loadPuzzle(board);
     }
 
     private int getDifficulty() {
@@ -106,39 +105,12 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
     }
 
     private void readBoard() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                String text = cells[i][j].getText();
-                board[i][j] = text.isEmpty() ? 0 : Integer.parseInt(text);
-            }
-        }
-    }
-
-    private void updateBoard() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j].setText(board[i][j] == 0 ? "" : String.valueOf(board[i][j]));
-                cells[i][j].setBackground((i / SUBGRID + j / SUBGRID) % 2 == 0 ? new Color(173, 216, 230) : Color.WHITE);
-            }
-        }
+        boardView.copyTo(board);
     }
 
     private void validateSolution() {
-        boolean valid = true;
-        readBoard();
-
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (board[i][j] != 0 && !isValid(board, i, j, board[i][j])) {
-                    cells[i][j].setBackground(Color.RED);
-                    valid = false;
-                } else {
-                    cells[i][j].setBackground((i / SUBGRID + j / SUBGRID) % 2 == 0 ? new Color(173, 216, 230) : Color.WHITE);
-                }
-            }
-        }
-
-        if (valid) {
+        // The board highlights conflicting entries as they are typed
+        if (!boardView.hasConflicts()) {
             JOptionPane.showMessageDialog(this, "Valid Solution!");
         } else {
             JOptionPane.showMessageDialog(this, "Invalid entries highlighted in red.");
@@ -155,8 +127,7 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
                             // Temporarily place the number
                             board[row][col] = num;
                             if (backtrackingSolve(board)) { // Check if it leads to a solution
-                                cells[row][col].setText(String.valueOf(num));
-                                cells[row][col].setBackground(Color.YELLOW);
+                                boardView.showHint(row, col, num);
                                 return; // Return the hint immediately
                             }
                             // Remove the number and try the next
@@ -189,8 +160,10 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
                     for (int num = 1; num <= SIZE; num++) {
                         if (isValid(board, row, col, num)) {
                             board[row][col] = num;
+                            SearchEvents.place(row * SIZE + col, num);
                             if (backtrackingSolve(board)) return true;
                             board[row][col] = 0;
+                            SearchEvents.remove(row * SIZE + col);
                         }
                     }
                     return false;
@@ -209,7 +182,6 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
         int[][] puzzle = copyBoard(fullBoard);
         int removeCount = difficulty == 0 ? 36 : difficulty == 1 ? 45 : 54;
 
-        Random rand = new Random();
         while (removeCount > 0) {
             int row = rand.nextInt(SIZE);
             int col = rand.nextInt(SIZE);
@@ -228,7 +200,6 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
     }
 
     private void fillSubGrid(int[][] board, int row, int col) {
-        Random rand = new Random();
         int[] numbers = new int[SIZE];
         for (int i = 0; i < SIZE; i++) {
             numbers[i] = i + 1;
@@ -242,7 +213,6 @@ public class OnlyBackTrackingCompleteGUI extends JFrame {
     }
 
     private void shuffleArray(int[] array) {
-        Random rand = new Random();
         for (int i = array.length - 1; i > 0; i--) {
             int j = rand.nextInt(i + 1);
             int temp = array[i];
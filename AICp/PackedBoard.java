@@ -0,0 +1,177 @@
+package AICp;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A 9x9 Sudoku board packed as 81 four-bit cells, sixteen cells per long.
+ * Copying, equality and hashing touch six words instead of nine row arrays,
+ * and a board serializes to {@link #RECORD_BYTES} bytes (two cells per byte).
+ */
+public final class PackedBoard {
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int RECORD_BYTES = (CELLS + 1) / 2;
+    private static final int WORDS = (CELLS + 15) / 16;
+
+    private final long[] words = new long[WORDS];
+
+    public PackedBoard() {
+    }
+
+    public static PackedBoard fromArray(int[][] board) {
+        PackedBoard packed = new PackedBoard();
+        packed.setFrom(board);
+        return packed;
+    }
+
+    /**
+     * Parses an 81-character line where '1'-'9' are givens and '0' or '.' are empty cells.
+     */
+    public static PackedBoard fromString(CharSequence text) {
+        if (text.length() < CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " cells but got " + text.length());
+        }
+        PackedBoard packed = new PackedBoard();
+        for (int cell = 0; cell < CELLS; cell++) {
+            char ch = text.charAt(cell);
+            if (ch >= '1' && ch <= '9') {
+                packed.set(cell, ch - '0');
+            } else if (ch != '0' && ch != '.') {
+                throw new IllegalArgumentException("Invalid character '" + ch + "' at cell " + cell);
+            }
+        }
+        return packed;
+    }
+
+    public int get(int cell) {
+        return (int) (words[cell >>> 4] >>> ((cell & 15) << 2)) & 0xF;
+    }
+
+    public int get(int row, int col) {
+        return get(row * SIZE + col);
+    }
+
+    public void set(int cell, int value) {
+        int shift = (cell & 15) << 2;
+        words[cell >>> 4] = (words[cell >>> 4] & ~(0xFL << shift)) | ((long) value << shift);
+    }
+
+    public void set(int row, int col, int value) {
+        set(row * SIZE + col, value);
+    }
+
+    public void setFrom(int[][] board) {
+        Arrays.fill(words, 0L);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int cell = row * SIZE + col;
+                words[cell >>> 4] |= (long) board[row][col] << ((cell & 15) << 2);
+            }
+        }
+    }
+
+    public void copyFrom(PackedBoard other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+    }
+
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void copyTo(int[][] board) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                board[row][col] = get(row * SIZE + col);
+            }
+        }
+    }
+
+    public int[][] toArray() {
+        int[][] board = new int[SIZE][SIZE];
+        copyTo(board);
+        return board;
+    }
+
+    public int clueCount() {
+        int count = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (get(cell) != 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the board as {@link #RECORD_BYTES} bytes, low nibble first.
+     */
+    public void writeTo(byte[] dest, int offset) {
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            int cell = i << 1;
+            int high = cell + 1 < CELLS ? get(cell + 1) : 0;
+            dest[offset + i] = (byte) (get(cell) | (high << 4));
+        }
+    }
+
+    public void writeTo(ByteBuffer dest) {
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            int cell = i << 1;
+            int high = cell + 1 < CELLS ? get(cell + 1) : 0;
+            dest.put((byte) (get(cell) | (high << 4)));
+        }
+    }
+
+    public void readFrom(byte[] src, int offset) {
+        Arrays.fill(words, 0L);
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            setPair(i << 1, src[offset + i]);
+        }
+    }
+
+    public void readFrom(ByteBuffer src) {
+        Arrays.fill(words, 0L);
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            setPair(i << 1, src.get());
+        }
+    }
+
+    private void setPair(int cell, byte packed) {
+        words[cell >>> 4] |= (long) (packed & 0xF) << ((cell & 15) << 2);
+        if (cell + 1 < CELLS) {
+            words[(cell + 1) >>> 4] |= (long) ((packed >>> 4) & 0xF) << (((cell + 1) & 15) << 2);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedBoard && Arrays.equals(words, ((PackedBoard) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = fingerprint();
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * A well-mixed 64-bit hash of the board, suitable as a compact identity in large sets.
+     */
+    public long fingerprint() {
+        long h = 0;
+        for (long word : words) {
+            h = (h ^ word) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            chars[cell] = (char) ('0' + get(cell));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,97 @@
+package AICp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary file format for large puzzle and solution sets.
+ *
+ * Layout: a 12-byte big-endian header (magic "SDKP", format version, boards per
+ * record) followed by fixed-size records of {@link PackedBoard#RECORD_BYTES} bytes
+ * per board. A record holds either a single puzzle or a puzzle followed by its
+ * solution. There is no record count, so files can be appended to freely.
+ */
+public final class PackedBoardFile {
+    public static final int MAGIC = 0x53444B50; // "SDKP"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 12;
+    public static final int PUZZLES = 1;
+    public static final int PUZZLES_WITH_SOLUTIONS = 2;
+
+    private PackedBoardFile() {
+    }
+
+    public static void writeHeader(ByteBuffer dest, int boardsPerRecord) {
+        dest.putInt(MAGIC).putInt(VERSION).putInt(boardsPerRecord);
+    }
+
+    /**
+     * Validates the header at the buffer's position and returns the boards per record.
+     */
+    public static int readHeader(ByteBuffer src) throws IOException {
+        if (src.remaining() < HEADER_BYTES || src.getInt() != MAGIC) {
+            throw new IOException("Not a packed board file");
+        }
+        int version = src.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported packed board file version " + version);
+        }
+        int boardsPerRecord = src.getInt();
+        if (boardsPerRecord != PUZZLES && boardsPerRecord != PUZZLES_WITH_SOLUTIONS) {
+            throw new IOException("Invalid boards per record: " + boardsPerRecord);
+        }
+        return boardsPerRecord;
+    }
+
+    public static boolean hasMagic(ByteBuffer src) {
+        return src.remaining() >= HEADER_BYTES && src.getInt(src.position()) == MAGIC;
+    }
+
+    public static void write(Path path, List<PackedBoard> puzzles) throws IOException {
+        write(path, puzzles, null);
+    }
+
+    /**
+     * Writes the puzzles, each followed by its solution when {@code solutions} is not null.
+     */
+    public static void write(Path path, List<PackedBoard> puzzles, List<PackedBoard> solutions) throws IOException {
+        int boardsPerRecord = solutions == null ? PUZZLES : PUZZLES_WITH_SOLUTIONS;
+        if (solutions != null && solutions.size() != puzzles.size()) {
+            throw new IllegalArgumentException("Puzzle and solution counts differ");
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            writeHeader(header, boardsPerRecord);
+            out.write(header.array());
+
+            byte[] record = new byte[PackedBoard.RECORD_BYTES * boardsPerRecord];
+            for (int i = 0; i < puzzles.size(); i++) {
+                puzzles.get(i).writeTo(record, 0);
+                if (solutions != null) {
+                    solutions.get(i).writeTo(record, PackedBoard.RECORD_BYTES);
+                }
+                out.write(record);
+            }
+        }
+    }
+
+    /**
+     * Reads every board in the file in record order (puzzle, solution, puzzle, ...).
+     */
+    public static List<PackedBoard> read(Path path) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        readHeader(data);
+        if (data.remaining() % PackedBoard.RECORD_BYTES != 0) {
+            throw new IOException("Truncated packed board file: " + path);
+        }
+        List<PackedBoard> boards = new ArrayList<>(data.remaining() / PackedBoard.RECORD_BYTES);
+        while (data.hasRemaining()) {
+            PackedBoard board = new PackedBoard();
+            board.readFrom(data);
+            boards.add(board);
+        }
+        return boards;
+    }
+}
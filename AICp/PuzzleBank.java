@@ -0,0 +1,241 @@
+package AICp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Memory-mapped bank of unique puzzles indexed by {@link PuzzleGrader} grade and
+ * clue count, so a puzzle of a requested grade is served without generating one.
+ *
+ * Layout: a 16-byte big-endian header (magic "SDKB", format version, slots per
+ * bucket, reserved), an int count for each of the 3 x 65 (grade, clue count)
+ * buckets, then a fixed number of {@link PackedBoard#RECORD_BYTES}-byte slots per
+ * bucket. A record is written before its bucket count, so readers never see a
+ * half-written slot. When a grade runs low a background thread tops it up.
+ *
+ * Usage: {@code java AICp.PuzzleBank <bankFile> [puzzlesPerGrade]}
+ */
+public final class PuzzleBank implements Closeable {
+    public static final int MAGIC = 0x53444B42; // "SDKB"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int GRADES = 3;
+    public static final int MIN_CLUES = 17;
+    public static final int CLUE_BUCKETS = PackedBoard.CELLS - MIN_CLUES + 1;
+    public static final int DEFAULT_SLOTS_PER_BUCKET = 128;
+
+    private static final int BUCKETS = GRADES * CLUE_BUCKETS;
+    private static final int INDEX_OFFSET = HEADER_BYTES;
+    private static final int RECORDS_OFFSET = INDEX_OFFSET + BUCKETS * Integer.BYTES;
+    private static final int LOW_WATER = 16;
+    private static final int TOP_UP_TARGET = 64;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotsPerBucket;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+    private final AtomicIntegerArray totals = new AtomicIntegerArray(GRADES);
+    private final AtomicBoolean toppingUp = new AtomicBoolean();
+    private final ExecutorService topUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "puzzle-bank-top-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    private PuzzleBank(FileChannel channel, MappedByteBuffer buffer, int slotsPerBucket) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotsPerBucket = slotsPerBucket;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            int count = Math.min(buffer.getInt(INDEX_OFFSET + bucket * Integer.BYTES), slotsPerBucket);
+            counts.set(bucket, count);
+            totals.addAndGet(bucket / CLUE_BUCKETS, count);
+        }
+    }
+
+    public static PuzzleBank open(Path path) throws IOException {
+        return open(path, DEFAULT_SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * Maps an existing bank, or creates an empty one with the given number of
+     * slots per bucket if the file is missing or empty.
+     */
+    public static PuzzleBank open(Path path, int slotsPerBucket) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                header.flip();
+                slotsPerBucket = readHeader(header);
+            } else if (slotsPerBucket <= 0) {
+                throw new IllegalArgumentException("Slots per bucket must be positive: " + slotsPerBucket);
+            }
+
+            long length = RECORDS_OFFSET + (long) BUCKETS * slotsPerBucket * PackedBoard.RECORD_BYTES;
+            if (!created && channel.size() < length) {
+                throw new IOException("Truncated puzzle bank: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (created) {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slotsPerBucket);
+            }
+            return new PuzzleBank(channel, buffer, slotsPerBucket);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int readHeader(ByteBuffer src) throws IOException {
+        if (src.remaining() < HEADER_BYTES || src.getInt() != MAGIC) {
+            throw new IOException("Not a puzzle bank");
+        }
+        int version = src.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle bank version " + version);
+        }
+        int slotsPerBucket = src.getInt();
+        if (slotsPerBucket <= 0) {
+            throw new IOException("Invalid slots per bucket: " + slotsPerBucket);
+        }
+        return slotsPerBucket;
+    }
+
+    /**
+     * @return a random puzzle of the given grade, or null if the bank holds none yet
+     */
+    public int[][] pick(int grade) {
+        int total = totals.get(grade);
+        if (total < LOW_WATER) {
+            requestTopUp();
+        }
+        if (total == 0) return null;
+
+        // Counts only grow, so walking the live counts always reaches the target.
+        // Read each count once: a top-up may grow it between two reads
+        int target = ThreadLocalRandom.current().nextInt(total);
+        int bucket = grade * CLUE_BUCKETS;
+        while (true) {
+            int count = counts.get(bucket);
+            if (target < count) break;
+            target -= count;
+            bucket++;
+        }
+        PackedBoard puzzle = new PackedBoard();
+        ByteBuffer src = buffer.duplicate();
+        src.position(recordOffset(bucket, target));
+        puzzle.readFrom(src);
+        return puzzle.toArray();
+    }
+
+    /**
+     * Stores a puzzle under its grade and clue count.
+     *
+     * @return false if that bucket is full
+     */
+    public synchronized boolean add(PackedBoard puzzle, int grade) {
+        if (closed) throw new IllegalStateException("Puzzle bank is closed");
+        int clues = Math.max(puzzle.clueCount(), MIN_CLUES);
+        int bucket = grade * CLUE_BUCKETS + clues - MIN_CLUES;
+        int count = counts.get(bucket);
+        if (count >= slotsPerBucket) return false;
+
+        ByteBuffer dest = buffer.duplicate();
+        dest.position(recordOffset(bucket, count));
+        puzzle.writeTo(dest);
+        buffer.putInt(INDEX_OFFSET + bucket * Integer.BYTES, count + 1);
+        counts.set(bucket, count + 1);
+        totals.incrementAndGet(grade);
+        return true;
+    }
+
+    public int size(int grade) {
+        return totals.get(grade);
+    }
+
+    /**
+     * Generates unique puzzles until every grade holds at least {@code perGrade}
+     * (capped at the slots per bucket) or the thread is interrupted.
+     */
+    public void topUp(int perGrade) {
+        perGrade = Math.min(perGrade, slotsPerBucket);
+        SudokuLogicBackTracking generator = new SudokuLogicBackTracking();
+        Random rand = new Random();
+        while (!closed && !Thread.currentThread().isInterrupted() && !isFull(perGrade)) {
+            int[][] puzzle = PuzzleGrader.generateUnique(generator, rand);
+            int grade = PuzzleGrader.grade(puzzle);
+            if (totals.get(grade) < perGrade && !closed) {
+                add(PackedBoard.fromArray(puzzle), grade);
+            }
+        }
+    }
+
+    private boolean isFull(int perGrade) {
+        for (int grade = 0; grade < GRADES; grade++) {
+            if (totals.get(grade) < perGrade) return false;
+        }
+        return true;
+    }
+
+    private void requestTopUp() {
+        if (closed || !toppingUp.compareAndSet(false, true)) return;
+        try {
+            topUpExecutor.execute(() -> {
+                try {
+                    topUp(TOP_UP_TARGET);
+                } finally {
+                    toppingUp.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            toppingUp.set(false);
+        }
+    }
+
+    private int recordOffset(int bucket, int slot) {
+        return RECORDS_OFFSET + (bucket * slotsPerBucket + slot) * PackedBoard.RECORD_BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        topUpExecutor.shutdownNow();
+        try {
+            topUpExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.force();
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java AICp.PuzzleBank <bankFile> [puzzlesPerGrade]");
+            return;
+        }
+        int perGrade = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SLOTS_PER_BUCKET;
+        try (PuzzleBank bank = open(Paths.get(args[0]))) {
+            long start = System.nanoTime();
+            bank.topUp(perGrade);
+            System.out.printf("Easy %d, medium %d, hard %d puzzles (%.1f s)%n",
+                    bank.size(PuzzleGrader.EASY), bank.size(PuzzleGrader.MEDIUM),
+                    bank.size(PuzzleGrader.HARD), (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
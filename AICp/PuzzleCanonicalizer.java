@@ -0,0 +1,231 @@
+package AICp;
+
+import java.util.Arrays;
+
+/**
+ * Computes the canonical form of a puzzle: the lexicographically smallest board
+ * (read row by row, empty cells as 0) reachable under the Sudoku symmetry group,
+ * with digits relabeled in order of first appearance.
+ *
+ * The search never enumerates the 3,359,232 geometric symmetries. It first picks
+ * the orientation and the source of the first output row, then builds the column
+ * arrangement one column at a time, cutting it as soon as the relabeled first
+ * row is larger than the best first row found so far. For each surviving column
+ * arrangement the remaining rows are chosen depth-first: only the rows giving
+ * the smallest relabeled row at the current depth are followed, and a branch is
+ * cut as soon as its prefix is larger than the best board found so far.
+ *
+ * Instances hold scratch state and are not thread-safe.
+ */
+public class PuzzleCanonicalizer {
+    private static final int SIZE = 9;
+    private static final int BAND = 3;
+
+    private final int[] grid = new int[SIZE * SIZE];
+    private final int[] colPerm = new int[SIZE];
+    private final int[] rowPath = new int[SIZE];
+    private final long[] pathRows = new long[SIZE];
+    private final int[][] labelStack = new int[SIZE + 1][SIZE + 1];
+    private final int[] nextLabelStack = new int[SIZE + 1];
+    private final int[][] candidateStack = new int[SIZE][SIZE];
+    private final int[] newLabels = new int[SIZE + 1];
+    private final int[][] firstRowLabels = new int[SIZE + 1][SIZE + 1];
+    private final int[] firstRowNext = new int[SIZE + 1];
+
+    private boolean haveBest;
+    private final long[] bestRows = new long[SIZE];
+    private boolean bestTranspose;
+    private final int[] bestRowPerm = new int[SIZE];
+    private final int[] bestColPerm = new int[SIZE];
+    private final int[] bestLabels = new int[SIZE + 1];
+    private int bestNextLabel;
+
+    public static PackedBoard canonicalize(PackedBoard puzzle) {
+        return new PuzzleCanonicalizer().canonicalForm(puzzle);
+    }
+
+    public PackedBoard canonicalForm(PackedBoard puzzle) {
+        return canonicalTransform(puzzle).apply(puzzle);
+    }
+
+    /**
+     * Finds a transform that maps {@code puzzle} onto its canonical form.
+     */
+    public SudokuTransform canonicalTransform(PackedBoard puzzle) {
+        haveBest = false;
+        if (puzzle.clueCount() == 0) {
+            // Every symmetry fixes the empty board; skip the all-ties search.
+            int[] identity = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+            return new SudokuTransform(false, identity, identity, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        }
+        for (int t = 0; t < 2; t++) {
+            boolean transpose = t == 1;
+            for (int row = 0; row < SIZE; row++) {
+                for (int col = 0; col < SIZE; col++) {
+                    grid[row * SIZE + col] = transpose ? puzzle.get(col, row) : puzzle.get(row, col);
+                }
+            }
+            for (int firstRow = 0; firstRow < SIZE; firstRow++) {
+                rowPath[0] = firstRow;
+                Arrays.fill(firstRowLabels[0], 0);
+                firstRowNext[0] = 0;
+                searchColumns(0, 0, 0L, transpose);
+            }
+        }
+
+        int[] digitMap = bestLabels.clone();
+        int next = bestNextLabel;
+        for (int digit = 1; digit <= SIZE; digit++) {
+            if (digitMap[digit] == 0) digitMap[digit] = ++next;
+        }
+        return new SudokuTransform(bestTranspose, bestRowPerm, bestColPerm, digitMap);
+    }
+
+    /**
+     * Places the column for output position {@code pos}, keeping stacks intact, while
+     * building the relabeled first row in {@code prefix}.
+     */
+    private void searchColumns(int pos, int usedCols, long prefix, boolean transpose) {
+        if (pos == SIZE) {
+            pathRows[0] = prefix;
+            System.arraycopy(firstRowLabels[SIZE], 0, labelStack[1], 0, SIZE + 1);
+            nextLabelStack[1] = firstRowNext[SIZE];
+            search(1, 1 << rowPath[0], transpose);
+            return;
+        }
+
+        int firstCol;
+        int lastCol;
+        if (pos % BAND == 0) {
+            firstCol = 0;
+            lastCol = SIZE;
+        } else {
+            firstCol = colPerm[pos - 1] / BAND * BAND;
+            lastCol = firstCol + BAND;
+        }
+        int[] labels = firstRowLabels[pos];
+        int[] childLabels = firstRowLabels[pos + 1];
+        long bestPrefix = haveBest ? bestRows[0] >>> (4 * (SIZE - 1 - pos)) : Long.MAX_VALUE;
+
+        for (int col = firstCol; col < lastCol; col++) {
+            if ((usedCols & (1 << col)) != 0) continue;
+            if (pos % BAND == 0 && (usedCols & (7 << (col / BAND * BAND))) != 0) continue;
+
+            int digit = grid[rowPath[0] * SIZE + col];
+            int next = firstRowNext[pos];
+            int label = 0;
+            if (digit != 0) {
+                label = labels[digit] != 0 ? labels[digit] : ++next;
+            }
+            long childPrefix = (prefix << 4) | label;
+            if (childPrefix > bestPrefix) continue;
+
+            System.arraycopy(labels, 0, childLabels, 0, SIZE + 1);
+            if (digit != 0) childLabels[digit] = label;
+            firstRowNext[pos + 1] = next;
+            colPerm[pos] = col;
+            searchColumns(pos + 1, usedCols | (1 << col), childPrefix, transpose);
+            // A new best may have been recorded below; tighten the bound for the siblings.
+            if (haveBest) bestPrefix = bestRows[0] >>> (4 * (SIZE - 1 - pos));
+        }
+    }
+
+    private void search(int depth, int usedRows, boolean transpose) {
+        int cmp = comparePrefix(depth);
+        if (cmp > 0) return;
+        if (depth == SIZE) {
+            if (cmp < 0 || !haveBest) record(transpose);
+            return;
+        }
+
+        int[] labels = labelStack[depth];
+        int nextLabel = nextLabelStack[depth];
+        int[] candidates = candidateStack[depth];
+        int candidateCount = 0;
+        long min = Long.MAX_VALUE;
+
+        int firstRow;
+        int lastRow;
+        if (depth % BAND == 0) {
+            firstRow = 0;
+            lastRow = SIZE;
+        } else {
+            firstRow = rowPath[depth - 1] / BAND * BAND;
+            lastRow = firstRow + BAND;
+        }
+        for (int row = firstRow; row < lastRow; row++) {
+            if ((usedRows & (1 << row)) != 0) continue;
+            if (depth % BAND == 0 && (usedRows & (7 << (row / BAND * BAND))) != 0) continue;
+            long value = relabeledRow(row, labels, nextLabel, null);
+            if (value < min) {
+                min = value;
+                candidateCount = 0;
+            }
+            if (value == min) candidates[candidateCount++] = row;
+        }
+
+        if (cmp == 0 && haveBest && min > bestRows[depth]) return;
+
+        for (int i = 0; i < candidateCount; i++) {
+            int row = candidates[i];
+            int[] childLabels = labelStack[depth + 1];
+            System.arraycopy(labels, 0, childLabels, 0, SIZE + 1);
+            relabeledRow(row, labels, nextLabel, childLabels);
+            nextLabelStack[depth + 1] = nextLabel + countNew(labels, childLabels);
+            rowPath[depth] = row;
+            pathRows[depth] = min;
+            search(depth + 1, usedRows | (1 << row), transpose);
+        }
+    }
+
+    /**
+     * Encodes the row as nine 4-bit labels, first cell most significant, so that
+     * numeric order equals lexicographic order. When {@code assign} is not null the
+     * labels given to newly seen digits are written into it.
+     */
+    private long relabeledRow(int row, int[] labels, int nextLabel, int[] assign) {
+        Arrays.fill(newLabels, 0);
+        long value = 0;
+        int base = row * SIZE;
+        for (int col = 0; col < SIZE; col++) {
+            int digit = grid[base + colPerm[col]];
+            int label = 0;
+            if (digit != 0) {
+                label = labels[digit];
+                if (label == 0) {
+                    if (newLabels[digit] == 0) newLabels[digit] = ++nextLabel;
+                    label = newLabels[digit];
+                    if (assign != null) assign[digit] = label;
+                }
+            }
+            value = (value << 4) | label;
+        }
+        return value;
+    }
+
+    private static int countNew(int[] before, int[] after) {
+        int count = 0;
+        for (int digit = 1; digit <= SIZE; digit++) {
+            if (before[digit] == 0 && after[digit] != 0) count++;
+        }
+        return count;
+    }
+
+    private int comparePrefix(int depth) {
+        if (!haveBest) return -1;
+        for (int i = 0; i < depth; i++) {
+            if (pathRows[i] != bestRows[i]) return pathRows[i] < bestRows[i] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private void record(boolean transpose) {
+        haveBest = true;
+        bestTranspose = transpose;
+        System.arraycopy(pathRows, 0, bestRows, 0, SIZE);
+        System.arraycopy(rowPath, 0, bestRowPerm, 0, SIZE);
+        System.arraycopy(colPerm, 0, bestColPerm, 0, SIZE);
+        System.arraycopy(labelStack[SIZE], 0, bestLabels, 0, SIZE + 1);
+        bestNextLabel = nextLabelStack[SIZE];
+    }
+}
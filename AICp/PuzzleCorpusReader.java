@@ -0,0 +1,117 @@
+package AICp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Streams puzzles out of a memory-mapped corpus file without building a String per line.
+ *
+ * Two formats are recognised: text files with one 81-character puzzle per line
+ * ('1'-'9' givens, '0' or '.' empty; anything after the 81st cell is ignored, and
+ * blank lines and lines starting with '#' are skipped), and the packed binary
+ * format of {@link PackedBoardFile}, whose solution boards are skipped.
+ * Large files are mapped through a sliding window.
+ */
+public class PuzzleCorpusReader implements Closeable {
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean binary;
+    private final int boardsPerRecord;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long position;
+    private long lineNumber;
+
+    public PuzzleCorpusReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+        if (PackedBoardFile.hasMagic(window)) {
+            binary = true;
+            boardsPerRecord = PackedBoardFile.readHeader(window.duplicate());
+            position = PackedBoardFile.HEADER_BYTES;
+        } else {
+            binary = false;
+            boardsPerRecord = 1;
+        }
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Reads the next puzzle into {@code dest}.
+     * @return false once the end of the corpus is reached
+     */
+    public boolean next(PackedBoard dest) throws IOException {
+        return binary ? nextBinary(dest) : nextText(dest);
+    }
+
+    private boolean nextBinary(PackedBoard dest) throws IOException {
+        long recordBytes = (long) PackedBoard.RECORD_BYTES * boardsPerRecord;
+        if (position >= size) return false;
+        if (position + recordBytes > size) {
+            throw new IOException("Truncated record at byte " + position);
+        }
+        if (position + recordBytes > windowEnd) map(position);
+        window.position((int) (position - windowStart));
+        dest.readFrom(window);
+        position += recordBytes;
+        return true;
+    }
+
+    private boolean nextText(PackedBoard dest) throws IOException {
+        while (position < size) {
+            lineNumber++;
+            int first = byteAt(position);
+            if (first == '\n' || first == '\r' || first == '#') {
+                skipLine();
+                continue;
+            }
+            for (int cell = 0; cell < PackedBoard.CELLS; cell++) {
+                int ch = position < size ? byteAt(position) : '\n';
+                if (ch >= '1' && ch <= '9') {
+                    dest.set(cell, ch - '0');
+                } else if (ch == '0' || ch == '.') {
+                    dest.set(cell, 0);
+                } else {
+                    throw new IOException("Invalid puzzle on line " + lineNumber + " at cell " + cell);
+                }
+                position++;
+            }
+            skipLine();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipLine() throws IOException {
+        while (position < size && byteAt(position) != '\n') {
+            position++;
+        }
+        position++;
+    }
+
+    private int byteAt(long pos) throws IOException {
+        if (pos < windowStart || pos >= windowEnd) map(pos);
+        return window.get((int) (pos - windowStart));
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        windowEnd = Math.min(size, start + WINDOW_BYTES);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,101 @@
+package AICp;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Appends boards to a corpus file through a single reusable direct buffer.
+ * Text output writes one 81-character line per board; binary output uses the
+ * {@link PackedBoardFile} layout and writes the header when the file is new.
+ */
+public class PuzzleCorpusWriter implements Closeable, Flushable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final boolean binary;
+    private final int boardsPerRecord;
+
+    private PuzzleCorpusWriter(Path path, boolean binary, int boardsPerRecord) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.binary = binary;
+        this.boardsPerRecord = boardsPerRecord;
+        if (binary) {
+            if (channel.size() == 0) {
+                PackedBoardFile.writeHeader(buffer, boardsPerRecord);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(PackedBoardFile.HEADER_BYTES);
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                    in.read(header, 0);
+                }
+                header.flip();
+                if (PackedBoardFile.readHeader(header) != boardsPerRecord) {
+                    channel.close();
+                    throw new IOException("Existing file has a different record layout: " + path);
+                }
+            }
+        }
+    }
+
+    public static PuzzleCorpusWriter text(Path path) throws IOException {
+        return new PuzzleCorpusWriter(path, false, PackedBoardFile.PUZZLES);
+    }
+
+    public static PuzzleCorpusWriter binary(Path path, int boardsPerRecord) throws IOException {
+        return new PuzzleCorpusWriter(path, true, boardsPerRecord);
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public void write(PackedBoard board) throws IOException {
+        if (boardsPerRecord != PackedBoardFile.PUZZLES) {
+            throw new IllegalStateException("Writer expects puzzle and solution pairs");
+        }
+        put(board);
+    }
+
+    public void write(PackedBoard puzzle, PackedBoard solution) throws IOException {
+        if (boardsPerRecord != PackedBoardFile.PUZZLES_WITH_SOLUTIONS) {
+            throw new IllegalStateException("Writer expects single boards");
+        }
+        put(puzzle);
+        put(solution);
+    }
+
+    private void put(PackedBoard board) throws IOException {
+        if (buffer.remaining() < PackedBoard.CELLS + 1) flush();
+        if (binary) {
+            board.writeTo(buffer);
+        } else {
+            for (int cell = 0; cell < PackedBoard.CELLS; cell++) {
+                buffer.put((byte) ('0' + board.get(cell)));
+            }
+            buffer.put((byte) '\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package AICp;
+
+/**
+ * Cheap features of a puzzle that predict which engine solves it fastest, and
+ * the bucket they fall into in an {@link EngineSelector} table.
+ *
+ * The features come from the givens and one naked-singles propagation pass:
+ * clue count, the fewest givens in any row, column or box, the cells still empty
+ * and a histogram of their candidate counts.
+ */
+public final class PuzzleFeatures {
+    private static final int SIZE = 9;
+
+    /** Bucket of puzzles whose givens contradict each other. */
+    public static final int INVALID = 0;
+    /** Bucket of puzzles that naked singles alone solve. */
+    public static final int SINGLES = 1;
+    private static final int EMPTY_BANDS = 4;
+    private static final int EMPTY_BAND_WIDTH = 15;
+    private static final int BRANCH_BANDS = 3;
+    public static final int BUCKETS = 2 + EMPTY_BANDS * BRANCH_BANDS * 2;
+
+    private final int clues;
+    private final int minUnitGivens;
+    private final int emptyAfterPropagation;
+    private final int[] candidateHistogram = new int[SIZE + 1];
+    private final boolean contradiction;
+
+    private PuzzleFeatures(int[][] board) {
+        int[] rows = new int[SIZE];
+        int[] cols = new int[SIZE];
+        int[] boxes = new int[SIZE];
+        int count = 0;
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (board[r][c] == 0) continue;
+                count++;
+                rows[r]++;
+                cols[c]++;
+                boxes[(r / 3) * 3 + c / 3]++;
+            }
+        }
+        int fewest = SIZE;
+        for (int i = 0; i < SIZE; i++) {
+            fewest = Math.min(fewest, Math.min(rows[i], Math.min(cols[i], boxes[i])));
+        }
+        clues = count;
+        minUnitGivens = fewest;
+
+        int[][] work = new int[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            work[i] = board[i].clone();
+        }
+        int[][] candidates = CandidatePropagator.propagate(work, false);
+        contradiction = candidates == null;
+        int empty = 0;
+        if (!contradiction) {
+            for (int r = 0; r < SIZE; r++) {
+                for (int c = 0; c < SIZE; c++) {
+                    if (work[r][c] != 0) continue;
+                    empty++;
+                    candidateHistogram[Integer.bitCount(candidates[r][c])]++;
+                }
+            }
+        }
+        emptyAfterPropagation = empty;
+    }
+
+    public static PuzzleFeatures of(int[][] board) {
+        return new PuzzleFeatures(board);
+    }
+
+    public int getClues() {
+        return clues;
+    }
+
+    public int getMinUnitGivens() {
+        return minUnitGivens;
+    }
+
+    public int getEmptyAfterPropagation() {
+        return emptyAfterPropagation;
+    }
+
+    /**
+     * @return how many cells left empty by propagation have k candidates
+     */
+    public int getCandidateCount(int k) {
+        return candidateHistogram[k];
+    }
+
+    public boolean hasContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * @return the mean number of candidates of the cells propagation left empty
+     */
+    public double getMeanCandidates() {
+        if (emptyAfterPropagation == 0) return 0.0;
+        int total = 0;
+        for (int k = 1; k <= SIZE; k++) {
+            total += k * candidateHistogram[k];
+        }
+        return (double) total / emptyAfterPropagation;
+    }
+
+    /**
+     * Buckets the puzzle by how much is left after propagation (four bands of 15
+     * cells), how much each empty cell branches (mean candidates below 2.5, below
+     * 3.5, or more) and whether some unit has no givens at all.
+     */
+    public int bucket() {
+        if (contradiction) return INVALID;
+        if (emptyAfterPropagation == 0) return SINGLES;
+        int emptyBand = Math.min(EMPTY_BANDS - 1, (emptyAfterPropagation - 1) / EMPTY_BAND_WIDTH);
+        double mean = getMeanCandidates();
+        int branchBand = mean < 2.5 ? 0 : mean < 3.5 ? 1 : 2;
+        int emptyUnit = minUnitGivens == 0 ? 1 : 0;
+        return 2 + (emptyBand * BRANCH_BANDS + branchBand) * 2 + emptyUnit;
+    }
+
+    /**
+     * @return the bucket's name in table files, such as {@code e1-b2-u0}
+     */
+    public static String bucketName(int bucket) {
+        if (bucket == INVALID) return "invalid";
+        if (bucket == SINGLES) return "singles";
+        int index = bucket - 2;
+        return "e" + index / 2 / BRANCH_BANDS + "-b" + index / 2 % BRANCH_BANDS + "-u" + index % 2;
+    }
+
+    /**
+     * @return the bucket with the given name, or -1 if there is none
+     */
+    public static int bucketOf(String name) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (bucketName(bucket).equals(name)) return bucket;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,155 @@
+package AICp;
+
+import java.util.Random;
+
+/**
+ * Grades puzzles by the techniques needed to solve them, counts solutions, and
+ * digs unique puzzles out of random solutions.
+ */
+public final class PuzzleGrader {
+    public static final int EASY = 0;
+    public static final int MEDIUM = 1;
+    public static final int HARD = 2;
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ALL_VALUES = 0x3FE;
+    private static final int MIN_TARGET_CLUES = 22;
+    private static final int MAX_TARGET_CLUES = 45;
+
+    private PuzzleGrader() {
+    }
+
+    /**
+     * @return EASY if naked singles solve the puzzle, MEDIUM if hidden singles and
+     *         naked pairs are also needed, otherwise HARD
+     */
+    public static int grade(int[][] puzzle) {
+        if (solvedBy(puzzle, false)) return EASY;
+        if (solvedBy(puzzle, true)) return MEDIUM;
+        return HARD;
+    }
+
+    public static boolean hasUniqueSolution(int[][] puzzle) {
+        return countSolutions(puzzle, 2) == 1;
+    }
+
+    /**
+     * Counts solutions with a bitmask search, stopping once {@code limit} are found.
+     */
+    public static int countSolutions(int[][] puzzle, int limit) {
+        int[] cells = new int[CELLS];
+        int[] rows = new int[SIZE];
+        int[] cols = new int[SIZE];
+        int[] boxes = new int[SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = puzzle[cell / SIZE][cell % SIZE];
+            if (value == 0) continue;
+            int bit = 1 << value;
+            int row = cell / SIZE, col = cell % SIZE, box = boxOf(cell);
+            if (((rows[row] | cols[col] | boxes[box]) & bit) != 0) return 0;
+            cells[cell] = value;
+            rows[row] |= bit;
+            cols[col] |= bit;
+            boxes[box] |= bit;
+        }
+        return count(cells, rows, cols, boxes, limit);
+    }
+
+    /**
+     * Removes clues from a random solution in random order while the solution
+     * stays unique, stopping at a random clue count between 22 and 45.
+     */
+    public static int[][] generateUnique(SudokuLogicBackTracking generator, Random rand) {
+        return digUnique(generator.generateSolution(), rand);
+    }
+
+    /**
+     * Like {@link #generateUnique} but digs from the given solution, which is not modified.
+     */
+    public static int[][] digUnique(int[][] solution, Random rand) {
+        int[][] puzzle = new int[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            puzzle[i] = solution[i].clone();
+        }
+        int[] order = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = i;
+        }
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        int targetClues = MIN_TARGET_CLUES + rand.nextInt(MAX_TARGET_CLUES - MIN_TARGET_CLUES + 1);
+        int clues = CELLS;
+        for (int cell : order) {
+            if (clues <= targetClues) break;
+            int row = cell / SIZE, col = cell % SIZE;
+            int value = puzzle[row][col];
+            puzzle[row][col] = 0;
+            if (hasUniqueSolution(puzzle)) {
+                clues--;
+            } else {
+                puzzle[row][col] = value;
+            }
+        }
+        return puzzle;
+    }
+
+    private static boolean solvedBy(int[][] puzzle, boolean allTechniques) {
+        int[][] work = new int[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            work[i] = puzzle[i].clone();
+        }
+        if (CandidatePropagator.propagate(work, allTechniques) == null) return false;
+        for (int[] row : work) {
+            for (int value : row) {
+                if (value == 0) return false;
+            }
+        }
+        return true;
+    }
+
+    private static int count(int[] cells, int[] rows, int[] cols, int[] boxes, int limit) {
+        // Branch on the empty cell with the fewest options
+        int bestCell = -1;
+        int bestOptions = 0;
+        int bestCount = SIZE + 1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cells[cell] != 0) continue;
+            int options = ALL_VALUES & ~(rows[cell / SIZE] | cols[cell % SIZE] | boxes[boxOf(cell)]);
+            int count = Integer.bitCount(options);
+            if (count == 0) return 0;
+            if (count < bestCount) {
+                bestCell = cell;
+                bestOptions = options;
+                bestCount = count;
+                if (count == 1) break;
+            }
+        }
+        if (bestCell < 0) return 1;
+
+        int row = bestCell / SIZE, col = bestCell % SIZE, box = boxOf(bestCell);
+        int found = 0;
+        for (int bits = bestOptions; bits != 0 && found < limit; bits &= bits - 1) {
+            int bit = bits & -bits;
+            cells[bestCell] = Integer.numberOfTrailingZeros(bit);
+            rows[row] |= bit;
+            cols[col] |= bit;
+            boxes[box] |= bit;
+            found += count(cells, rows, cols, boxes, limit - found);
+            rows[row] &= ~bit;
+            cols[col] &= ~bit;
+            boxes[box] &= ~bit;
+        }
+        cells[bestCell] = 0;
+        return found;
+    }
+
+    private static int boxOf(int cell) {
+        return (cell / SIZE / 3) * 3 + (cell % SIZE) / 3;
+    }
+}
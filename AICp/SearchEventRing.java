@@ -0,0 +1,81 @@
+package AICp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Lock-free single-producer, single-consumer ring of encoded {@link SearchEvents}.
+ *
+ * The solver thread offers events and the event dispatch thread drains them in
+ * batches. When the ring is full the producer parks briefly until the consumer
+ * catches up, so no event is lost, and gives up once the ring is closed.
+ */
+public final class SearchEventRing {
+    private static final long PARK_NANOS = 50_000L;
+
+    private final int[] events;
+    private final int mask;
+    // Next slot to read, advanced by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Producer-side copy of head, refreshed only when the ring looks full
+    private long cachedHead;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity a power of two
+     */
+    public SearchEventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        events = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Producer side.
+     *
+     * @return false if the ring was closed before the event could be stored
+     */
+    public boolean offer(int event) {
+        long t = tail.get();
+        while (t - cachedHead == events.length) {
+            cachedHead = head.get();
+            if (t - cachedHead < events.length) break;
+            if (closed) return false;
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        events[(int) t & mask] = event;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side: passes every event published so far to the consumer, oldest first.
+     *
+     * @return the number of events drained
+     */
+    public int drain(IntConsumer consumer) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            consumer.accept(events[(int) i & mask]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * Stops a blocked or future producer from waiting for space.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
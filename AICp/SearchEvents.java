@@ -0,0 +1,69 @@
+package AICp;
+
+/**
+ * Step events published by instrumented solvers (place, remove and domain
+ * change) for visualisation.
+ *
+ * A viewer attaches a {@link SearchEventRing} to the thread that runs the solve;
+ * on any other thread the publishing methods do nothing. Events are packed into
+ * an int: the type in bits 0-1, the cell in bits 2-8 and the value or domain
+ * mask in bits 9-18.
+ */
+public final class SearchEvents {
+    public static final int PLACE = 0;
+    public static final int REMOVE = 1;
+    public static final int DOMAIN = 2;
+
+    private static final ThreadLocal<SearchEventRing> LOCAL = new ThreadLocal<>();
+
+    private SearchEvents() {
+    }
+
+    public static void attach(SearchEventRing ring) {
+        LOCAL.set(ring);
+    }
+
+    public static void detach() {
+        LOCAL.remove();
+    }
+
+    public static boolean isAttached() {
+        return LOCAL.get() != null;
+    }
+
+    public static void place(int cell, int value) {
+        publish(PLACE, cell, value);
+    }
+
+    public static void remove(int cell) {
+        publish(REMOVE, cell, 0);
+    }
+
+    /**
+     * @param domain the cell's remaining candidates as bits 1-9
+     */
+    public static void domain(int cell, int domain) {
+        publish(DOMAIN, cell, domain);
+    }
+
+    private static void publish(int type, int cell, int payload) {
+        SearchEventRing ring = LOCAL.get();
+        if (ring != null) ring.offer(encode(type, cell, payload));
+    }
+
+    public static int encode(int type, int cell, int payload) {
+        return type | cell << 2 | payload << 9;
+    }
+
+    public static int type(int event) {
+        return event & 3;
+    }
+
+    public static int cell(int event) {
+        return (event >>> 2) & 0x7F;
+    }
+
+    public static int payload(int event) {
+        return event >>> 9;
+    }
+}
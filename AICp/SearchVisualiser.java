@@ -0,0 +1,69 @@
+package AICp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs a solver on a background thread and replays its {@link SearchEvents}
+ * on a {@link BoardComponent} once per display frame.
+ */
+public final class SearchVisualiser {
+    private static final int RING_CAPACITY = 1 << 16;
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    private SearchVisualiser() {
+    }
+
+    /**
+     * Solves a copy of the board, then on the event dispatch thread shows the
+     * solution (if any) and calls {@code onDone} with the result.
+     */
+    public static void start(BoardComponent view, Predicate<int[][]> solver, int[][] board, Consumer<Boolean> onDone) {
+        int[][] work = new int[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            work[i] = board[i].clone();
+        }
+        SearchEventRing ring = new SearchEventRing(RING_CAPACITY);
+        Timer timer = new Timer(frameDelay(view), e -> view.drain(ring));
+        view.setEditable(false);
+        view.setPencilMarks(false);
+        timer.start();
+
+        Thread worker = new Thread(() -> {
+            boolean solved = false;
+            SearchEvents.attach(ring);
+            try {
+                solved = solver.test(work);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                SearchEvents.detach();
+            }
+            boolean result = solved;
+            SwingUtilities.invokeLater(() -> {
+                timer.stop();
+                view.drain(ring);
+                ring.close();
+                if (result) view.fill(work);
+                view.clearDomains();
+                view.setEditable(true);
+                view.setPencilMarks(true);
+                onDone.accept(result);
+            });
+        }, "search-visualiser");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * @return the display's frame interval in milliseconds
+     */
+    private static int frameDelay(Component component) {
+        GraphicsConfiguration config = component.getGraphicsConfiguration();
+        int rate = config == null ? DisplayMode.REFRESH_RATE_UNKNOWN
+                : config.getDevice().getDisplayMode().getRefreshRate();
+        return 1000 / (rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate);
+    }
+}
@@ -1,186 +1,362 @@
 package AICp;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class SimulatedAnnealingSudoku {
     private static final int SIZE = 9;
     private static final double COOLING_RATE = 0.99;
     private static final int MAX_ATTEMPTS = 10; // Maximum number of attempts to solve
+    private static final double MIN_INITIAL_SIGMA = 1.0;
+    private static final int SIGMA_SAMPLES = 10;
+    // One annealer per thread, so repeated solves reuse its blocks and buffers
+    private static final ThreadLocal<SimulatedAnnealingSudoku> POOL =
+            ThreadLocal.withInitial(SimulatedAnnealingSudoku::new);
 
+    private final Xoshiro256 rand = new Xoshiro256();
+    // Candidate digits of every cell (row * SIZE + col) as bitmasks, from propagation
+    private final int[] candidates = new int[SIZE * SIZE];
+    // The first blockSizes[b] entries of blocks[b] are the block's free cells (row * SIZE + col)
+    private final int[][] blocks = new int[SIZE][SIZE];
+    private final int[] blockSizes = new int[SIZE];
+    private int blockCount;
+    // Scratch for filling blocks, choosing swaps and sampling the initial temperature
+    private final int[] order = new int[SIZE];
+    private final int[] digits = new int[SIZE];
+    private final int[] partners = new int[SIZE];
+    private final int[] samples = new int[SIGMA_SAMPLES];
+    private int swapFirst;
+    private int swapSecond;
+    // Progress of the current run, saved in checkpoints
+    private double sigma;
+    private double temperature;
+    private int attempt;
+    private final PackedBoard packed = new PackedBoard();
+    // The board as given, restored if a metrics limit abandons the search
+    private final int[][] given = new int[SIZE][SIZE];
+
+    /**
+     * Solves with this thread's pooled annealer and a random seed.
+     */
     public static boolean solve(int[][] board) {
+        return solve(board, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Solves with every random choice drawn from {@code seed}, so the same
+     * puzzle and seed repeat the same run.
+     */
+    public static boolean solve(int[][] board, long seed) {
+        return POOL.get().search(board, seed);
+    }
+
+    private boolean search(int[][] board, long seed) {
+        Path checkpoint = null;
+        rand.setSeed(seed);
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(board[i], 0, given[i], 0, SIZE);
+        }
         try {
-            int[][] fixedSudoku = markFixedCells(board);
-            List<List<int[]>> blocks = create3x3Blocks();
-            
-            // Fill the board in-place
-            fillBoardInPlace(board, blocks);
-            
-            double sigma = calculateInitialSigma(board, fixedSudoku, blocks);
-            int iterations = countNonZeroCells(fixedSudoku);
-            
-            // Try multiple times to find a solution
-            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
-                int score = calculateErrors(board);
-                double currentSigma = sigma;
-                
-                while (score > 0 && currentSigma > 0.01) {  // Add minimum temperature threshold
-                    for (int i = 0; i < iterations; i++) {
-                        var result = chooseNewState(board, fixedSudoku, blocks, currentSigma);
-                        if (result.sudoku != board) {  // If a new state was accepted
-                            copyBoard(result.sudoku, board);
-                            score += result.costDifference;
-                        }
-                        if (score == 0) return true;
-                    }
-                    currentSigma *= COOLING_RATE;
-                }
-                
-                if (score == 0) return true;
-                
-                // If not solved, reset and try again
-                if (attempt < MAX_ATTEMPTS - 1) {
-                    fillBoardInPlace(board, blocks);
-                }
+            int[][] puzzle = board;
+            checkpoint = SolverCheckpoint.path(SolverCheckpoint.ANNEALING, board);
+            if (checkpoint != null) puzzle = copyOf(board);
+
+            // Fix every cell propagation can determine and only search the rest
+            long start = SolverMetrics.phaseStart();
+            boolean consistent = CandidatePropagator.propagate(board, true, candidates);
+            SolverMetrics.phaseEnd(SolverMetrics.Phase.PROPAGATION, start);
+            if (!consistent) return false;
+
+            start = SolverMetrics.phaseStart();
+            int iterations = findBlocks(board);
+
+            if (!resume(checkpoint, puzzle, board)) {
+                // Fill the board in-place
+                fillBoardInPlace(board);
+                sigma = calculateInitialSigma(board);
+                temperature = sigma;
+                attempt = 0;
+            }
+            SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+            start = SolverMetrics.phaseStart();
+            try {
+                return anneal(board, iterations, checkpoint, puzzle);
+            } finally {
+                SolverMetrics.phaseEnd(SolverMetrics.Phase.SEARCH, start);
+            }
+        } catch (SolverMetrics.LimitExceededException e) {
+            for (int i = 0; i < SIZE; i++) {
+                System.arraycopy(given[i], 0, board[i], 0, SIZE);
             }
-            
-            return false;  // Could not find solution
+            throw e;
         } catch (Exception e) {
             return false;  // Return false if any error occurs
+        } finally {
+            if (checkpoint != null) SolverCheckpoint.delete(checkpoint);
         }
     }
 
-    private static void copyBoard(int[][] source, int[][] destination) {
-        for (int i = 0; i < SIZE; i++) {
-            System.arraycopy(source[i], 0, destination[i], 0, SIZE);
-        }
-    }
+    /**
+     * @param checkpoint where to save progress periodically, or null
+     */
+    private boolean anneal(int[][] board, int iterations, Path checkpoint, int[][] puzzle) {
+        if (blockCount == 0) return calculateErrors(board) == 0;
+        long nextCheckpoint = System.nanoTime() + SolverCheckpoint.INTERVAL_NANOS;
+        // Try multiple times to find a solution
+        for (; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) SolverMetrics.increment(SolverMetrics.Count.RESTARTS);
+            int score = calculateErrors(board);
 
-    private static void fillBoardInPlace(int[][] board, List<List<int[]>> blocks) {
-        Random rand = new Random();
-        
-        for (List<int[]> block : blocks) {
-            Set<Integer> used = new HashSet<>();
-            // First collect fixed numbers in this block
-            for (int[] cell : block) {
-                int value = board[cell[0]][cell[1]];
-                if (value != 0) {
-                    used.add(value);
+            while (score > 0 && temperature > 0.01) {  // Add minimum temperature threshold
+                if (checkpoint != null && System.nanoTime() - nextCheckpoint >= 0) {
+                    saveCheckpoint(checkpoint, puzzle, board);
+                    nextCheckpoint = System.nanoTime() + SolverCheckpoint.INTERVAL_NANOS;
                 }
-            }
-            // Then fill empty cells
-            for (int[] cell : block) {
-                if (board[cell[0]][cell[1]] == 0) {
-                    int num;
-                    do {
-                        num = rand.nextInt(9) + 1;
-                    } while (used.contains(num));
-                    board[cell[0]][cell[1]] = num;
-                    used.add(num);
+                for (int i = 0; i < iterations; i++) {
+                    SolverMetrics.increment(SolverMetrics.Count.ITERATIONS);
+                    // Swap in place and swap back if the move is rejected
+                    proposeSwap(board);
+                    swap(board);
+                    int newScore = calculateErrors(board);
+                    int costDifference = newScore - score;
+                    if (costDifference < 0 || Math.exp(-costDifference / temperature) > rand.nextDouble()) {
+                        SolverMetrics.increment(SolverMetrics.Count.ACCEPTED_MOVES);
+                        score = newScore;
+                    } else {
+                        swap(board);
+                    }
+                    if (score == 0) return true;
                 }
+                temperature *= COOLING_RATE;
+                SolverMetrics.increment(SolverMetrics.Count.TEMPERATURE_STEPS);
+            }
+
+            if (score == 0) return true;
+
+            // If not solved, reset and try again
+            if (attempt < MAX_ATTEMPTS - 1) {
+                fillBoardInPlace(board);
+                temperature = sigma;
             }
         }
+
+        return false;  // Could not find solution
+    }
+
+    /**
+     * Snapshots the run, including the random generator, between temperature steps.
+     */
+    private void saveCheckpoint(Path checkpoint, int[][] puzzle, int[][] board) {
+        ByteBuffer data = SolverCheckpoint.allocate(SolverCheckpoint.ANNEALING, puzzle,
+                SolverCheckpoint.RANDOM_BYTES + 20 + PackedBoard.RECORD_BYTES);
+        SolverCheckpoint.putRandom(data, rand);
+        data.putInt(attempt).putDouble(sigma).putDouble(temperature);
+        packed.setFrom(board);
+        packed.writeTo(data);
+        SolverCheckpoint.write(checkpoint, data);
+    }
+
+    /**
+     * @return true if the board and schedule were restored from a checkpoint of this puzzle
+     */
+    private boolean resume(Path checkpoint, int[][] puzzle, int[][] board) {
+        ByteBuffer data = SolverCheckpoint.read(checkpoint, SolverCheckpoint.ANNEALING, puzzle);
+        if (data == null) return false;
+        try {
+            long[] state = SolverCheckpoint.getRandom(data);
+            int savedAttempt = data.getInt();
+            double savedSigma = data.getDouble();
+            double savedTemperature = data.getDouble();
+            packed.readFrom(data);
+            rand.setState(state);
+            attempt = savedAttempt;
+            sigma = savedSigma;
+            temperature = savedTemperature;
+            packed.copyTo(board);
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable checkpoint " + checkpoint + ": " + e);
+            return false;
+        }
     }
 
-    private static int[][] markFixedCells(int[][] board) {
-        int[][] fixed = new int[SIZE][SIZE];
+    private static int[][] copyOf(int[][] board) {
+        int[][] copy = new int[SIZE][];
         for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (board[i][j] != 0) fixed[i][j] = 1;
-            }
+            copy[i] = board[i].clone();
         }
-        return fixed;
+        return copy;
+    }
+
+    public static boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
     }
 
-    private static List<List<int[]>> create3x3Blocks() {
-        List<List<int[]>> blocks = new ArrayList<>();
+    /**
+     * Collects the free cells of every block that has any; propagation leaves
+     * no block with exactly one free cell.
+     *
+     * @return the number of filled cells, used as the iterations per temperature
+     */
+    private int findBlocks(int[][] board) {
+        blockCount = 0;
+        int filled = 0;
         for (int i = 0; i < SIZE; i++) {
-            List<int[]> block = new ArrayList<>();
+            int size = 0;
             for (int r = (i / 3) * 3; r < (i / 3) * 3 + 3; r++) {
                 for (int c = (i % 3) * 3; c < (i % 3) * 3 + 3; c++) {
-                    block.add(new int[]{r, c});
+                    if (board[r][c] == 0) {
+                        blocks[blockCount][size++] = r * SIZE + c;
+                    } else {
+                        filled++;
+                    }
                 }
             }
-            blocks.add(block);
+            if (size > 0) blockSizes[blockCount++] = size;
         }
-        return blocks;
+        return filled;
     }
 
-    private static int countNonZeroCells(int[][] board) {
-        return (int) Arrays.stream(board)
-                .flatMapToInt(Arrays::stream)
-                .filter(cell -> cell != 0)
-                .count();
+    /**
+     * Gives each block's free cells a random arrangement of the block's missing
+     * digits, keeping every cell within its candidates when possible.
+     */
+    private void fillBoardInPlace(int[][] board) {
+        for (int b = 0; b < blockCount; b++) {
+            int[] block = blocks[b];
+            int size = blockSizes[b];
+            int blockRow = (block[0] / SIZE / 3) * 3;
+            int blockCol = (block[0] % SIZE / 3) * 3;
+            for (int i = 0; i < size; i++) {
+                board[block[i] / SIZE][block[i] % SIZE] = 0;
+            }
+            // Collect the digits the fixed cells leave missing
+            int missing = 0x3FE;
+            for (int r = blockRow; r < blockRow + 3; r++) {
+                for (int c = blockCol; c < blockCol + 3; c++) {
+                    missing &= ~(1 << board[r][c]);
+                }
+            }
+            System.arraycopy(block, 0, order, 0, size);
+            shuffle(order, size);
+            if (!assignCandidates(board, size, 0, missing)) {
+                int count = 0;
+                for (int num = 1; num <= SIZE; num++) {
+                    if ((missing & (1 << num)) != 0) digits[count++] = num;
+                }
+                shuffle(digits, count);
+                for (int i = 0; i < size; i++) {
+                    board[order[i] / SIZE][order[i] % SIZE] = digits[i];
+                }
+            }
+        }
+    }
+
+    private boolean assignCandidates(int[][] board, int size, int index, int missing) {
+        if (index == size) return true;
+        int row = order[index] / SIZE;
+        int col = order[index] % SIZE;
+        int options = candidates[row * SIZE + col] & missing;
+        int count = Integer.bitCount(options);
+        int skip = count == 0 ? 0 : rand.nextInt(count);
+        // Try the options starting from a random one
+        for (int i = 0; i < count; i++) {
+            int bits = options;
+            for (int k = (skip + i) % count; k > 0; k--) bits &= bits - 1;
+            int num = Integer.numberOfTrailingZeros(bits);
+            board[row][col] = num;
+            if (assignCandidates(board, size, index + 1, missing & ~(1 << num))) return true;
+        }
+        board[row][col] = 0;
+        return false;
+    }
+
+    private void shuffle(int[] values, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
     }
 
     private static int calculateErrors(int[][] board) {
         int errors = 0;
         for (int i = 0; i < SIZE; i++) {
-            errors += calculateErrorsInRowColumn(i, board);
+            // Each unit's error count is the number of digits it is missing
+            int rowSeen = 0;
+            int colSeen = 0;
+            for (int j = 0; j < SIZE; j++) {
+                rowSeen |= 1 << board[i][j];
+                colSeen |= 1 << board[j][i];
+            }
+            errors += 2 * SIZE - Integer.bitCount(rowSeen) - Integer.bitCount(colSeen);
         }
         return errors;
     }
 
-    private static int calculateErrorsInRowColumn(int index, int[][] board) {
-        int rowErrors = SIZE - (int) Arrays.stream(board[index]).distinct().count();
-        int colErrors = SIZE - (int) IntStream.range(0, SIZE).map(i -> board[i][index]).distinct().count();
-        return rowErrors + colErrors;
-    }
+    private double calculateInitialSigma(int[][] board) {
+        if (blockCount == 0) return 0.0;
 
-    private static double calculateInitialSigma(int[][] board, int[][] fixedSudoku, List<List<int[]>> blocks) {
-        List<Integer> differences = new ArrayList<>();
-        
-        for (int i = 0; i < 10; i++) {
-            var proposal = proposeNewState(board, fixedSudoku, blocks);
-            differences.add(calculateErrors(proposal.sudoku));
+        double mean = 0;
+        for (int i = 0; i < SIGMA_SAMPLES; i++) {
+            proposeSwap(board);
+            swap(board);
+            samples[i] = calculateErrors(board);
+            swap(board);
+            mean += samples[i];
         }
-        
-        double mean = differences.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        double variance = differences.stream()
-                .mapToDouble(diff -> Math.pow(diff - mean, 2))
-                .average()
-                .orElse(0.0);
-        
-        return Math.sqrt(variance);
-    }
-
-    private static Proposal chooseNewState(int[][] board, int[][] fixedSudoku, List<List<int[]>> blocks, double sigma) {
-        var proposal = proposeNewState(board, fixedSudoku, blocks);
-        int[][] newSudoku = proposal.sudoku;
-        int costDifference = calculateErrors(newSudoku) - calculateErrors(board);
-
-        if (costDifference < 0 || Math.exp(-costDifference / sigma) > Math.random()) {
-            return new Proposal(newSudoku, costDifference);
+        mean /= SIGMA_SAMPLES;
+        double variance = 0;
+        for (int sample : samples) {
+            variance += (sample - mean) * (sample - mean);
         }
-        return new Proposal(board, 0);
-    }
+        variance /= SIGMA_SAMPLES;
 
-    private static Proposal proposeNewState(int[][] board, int[][] fixedSudoku, List<List<int[]>> blocks) {
-        Random rand = new Random();
-        List<int[]> block = blocks.get(rand.nextInt(blocks.size()));
-        int[][] newSudoku = Arrays.stream(board).map(int[]::clone).toArray(int[][]::new);
+        // With few free cells after propagation the sampled costs can all be equal
+        return Math.max(MIN_INITIAL_SIGMA, Math.sqrt(variance));
+    }
 
-        int[] first = block.get(rand.nextInt(block.size()));
-        int[] second = block.get(rand.nextInt(block.size()));
+    /**
+     * Picks two free cells of a random block into swapFirst and swapSecond.
+     */
+    private void proposeSwap(int[][] board) {
+        int b = rand.nextInt(blockCount);
+        int[] block = blocks[b];
+        int size = blockSizes[b];
 
-        while (fixedSudoku[first[0]][first[1]] == 1 || fixedSudoku[second[0]][second[1]] == 1) {
-            first = block.get(rand.nextInt(block.size()));
-            second = block.get(rand.nextInt(block.size()));
+        // Prefer a partner whose swap keeps both cells within their candidates
+        int first = block[rand.nextInt(size)];
+        int firstCandidates = candidates[first];
+        int firstValue = board[first / SIZE][first % SIZE];
+        int partnerCount = 0;
+        for (int i = 0; i < size; i++) {
+            int cell = block[i];
+            if (cell != first
+                    && (firstCandidates & (1 << board[cell / SIZE][cell % SIZE])) != 0
+                    && (candidates[cell] & (1 << firstValue)) != 0) {
+                partners[partnerCount++] = cell;
+            }
         }
-
-        int temp = newSudoku[first[0]][first[1]];
-        newSudoku[first[0]][first[1]] = newSudoku[second[0]][second[1]];
-        newSudoku[second[0]][second[1]] = temp;
-
-        return new Proposal(newSudoku, 0);
+        int second;
+        if (partnerCount > 0) {
+            second = partners[rand.nextInt(partnerCount)];
+        } else {
+            do {
+                second = block[rand.nextInt(size)];
+            } while (second == first);
+        }
+        swapFirst = first;
+        swapSecond = second;
     }
 
-    private static class Proposal {
-        int[][] sudoku;
-        int costDifference;
-
-        Proposal(int[][] sudoku, int costDifference) {
-            this.sudoku = sudoku;
-            this.costDifference = costDifference;
-        }
+    private void swap(int[][] board) {
+        int temp = board[swapFirst / SIZE][swapFirst % SIZE];
+        board[swapFirst / SIZE][swapFirst % SIZE] = board[swapSecond / SIZE][swapSecond % SIZE];
+        board[swapSecond / SIZE][swapSecond % SIZE] = temp;
     }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package AICp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of solutions keyed by the canonical form of the puzzle, so
+ * every symmetric variant of a cached puzzle is a hit. Solutions are stored in
+ * canonical space and mapped back through the inverse transform on lookup.
+ */
+public class SolutionCache {
+    private final int capacity;
+    private final LinkedHashMap<PackedBoard, PackedBoard> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SolutionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PackedBoard, PackedBoard> eldest) {
+                if (size() > SolutionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Solves the board in-place, using a cached solution of any symmetric variant
+     * when one exists and the given engine otherwise.
+     * @return true if a solution was found, false otherwise
+     */
+    public boolean solve(int[][] board, SudokuEngine engine) {
+        PackedBoard puzzle = PackedBoard.fromArray(board);
+        SudokuTransform transform = new PuzzleCanonicalizer().canonicalTransform(puzzle);
+        PackedBoard canonical = transform.apply(puzzle);
+
+        PackedBoard solution = lookup(canonical);
+        if (solution == null) {
+            int[][] grid = canonical.toArray();
+            if (!engine.solve(grid)) {
+                return false;
+            }
+            solution = PackedBoard.fromArray(grid);
+            store(canonical, solution);
+        }
+
+        transform.invert(solution).copyTo(board);
+        return true;
+    }
+
+    /**
+     * Looks up a solution of the puzzle or any symmetric variant, counting a hit or miss.
+     * @return the solution mapped back onto the puzzle, or null on a miss
+     */
+    public PackedBoard get(PackedBoard puzzle) {
+        SudokuTransform transform = new PuzzleCanonicalizer().canonicalTransform(puzzle);
+        PackedBoard solution = lookup(transform.apply(puzzle));
+        return solution == null ? null : transform.invert(solution);
+    }
+
+    /**
+     * Caches a solution found elsewhere, for the puzzle and all its symmetric variants.
+     */
+    public void put(PackedBoard puzzle, PackedBoard solution) {
+        SudokuTransform transform = new PuzzleCanonicalizer().canonicalTransform(puzzle);
+        store(transform.apply(puzzle), transform.apply(solution));
+    }
+
+    private synchronized PackedBoard lookup(PackedBoard canonical) {
+        PackedBoard solution = entries.get(canonical);
+        if (solution != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return solution;
+    }
+
+    private synchronized void store(PackedBoard canonical, PackedBoard solution) {
+        entries.put(canonical, solution);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SolutionCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f]",
+                entries.size(), capacity, hits, misses, evictions, getHitRate());
+    }
+}
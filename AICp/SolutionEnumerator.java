@@ -0,0 +1,280 @@
+package AICp;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates every solution of a board with an iterative bitmask search.
+ * The search keeps one stack frame per empty cell in fixed arrays, so memory
+ * stays constant however many solutions there are; each call to {@link #next()}
+ * resumes the search where the previous solution left it.
+ *
+ * {@link #stream(int[][])} splits the remaining search tree between enumerators,
+ * so {@code stream(board).parallel().count()} searches on every core.
+ *
+ * Usage: {@code java AICp.SolutionEnumerator <81-character puzzle> [solutions to print]}
+ */
+public class SolutionEnumerator implements Iterator<int[][]> {
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ALL_VALUES = 0x3FE;
+
+    private static final int PUSHED = 0;
+    private static final int SOLVED = 1;
+    private static final int DEAD_END = 2;
+
+    private final int[] cells = new int[CELLS];
+    private final int[] rows = new int[SIZE];
+    private final int[] cols = new int[SIZE];
+    private final int[] boxes = new int[SIZE];
+    // One frame per decision: the cell, the values not tried yet and the value bit placed
+    private final int[] frameCell = new int[CELLS];
+    private final int[] frameRemaining = new int[CELLS];
+    private final int[] framePlaced = new int[CELLS];
+    private int depth;
+    // Frames below base belong to the enumerator this one was split from
+    private int base;
+    private boolean started;
+    private boolean ready;
+    private boolean exhausted;
+
+    /**
+     * @param board the puzzle, with 0 for empty cells; it is not modified
+     */
+    public SolutionEnumerator(int[][] board) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = board[cell / SIZE][cell % SIZE];
+            if (value == 0) continue;
+            int bit = 1 << value;
+            if (((rows[cell / SIZE] | cols[cell % SIZE] | boxes[boxOf(cell)]) & bit) != 0) {
+                exhausted = true; // Conflicting givens have no solutions
+                return;
+            }
+            set(cell, bit);
+        }
+    }
+
+    private SolutionEnumerator() {
+    }
+
+    /**
+     * @return a sequential stream of the board's solutions, which splits the
+     *         search tree when made parallel
+     */
+    public static Stream<int[][]> stream(int[][] board) {
+        return StreamSupport.stream(new Splitter(new SolutionEnumerator(board), Long.MAX_VALUE), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready && !exhausted) {
+            ready = advance();
+            exhausted = !ready;
+        }
+        return ready;
+    }
+
+    /**
+     * @return a new array holding the next solution
+     */
+    @Override
+    public int[][] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ready = false;
+        int[][] solution = new int[SIZE][SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            solution[cell / SIZE][cell % SIZE] = cells[cell];
+        }
+        return solution;
+    }
+
+    /**
+     * Moves the search to the next solution.
+     */
+    private boolean advance() {
+        if (!started) {
+            started = true;
+            int result = descend();
+            if (result == SOLVED) return true;
+            if (result == DEAD_END) return false;
+        }
+        while (depth > base) {
+            if (!placeNextValue()) continue;
+            int result = descend();
+            if (result == SOLVED) return true;
+            // A dead end tries the next value of the same frame
+        }
+        return false;
+    }
+
+    /**
+     * Pushes a frame for the empty cell with the fewest options without placing
+     * a value in it.
+     */
+    private int descend() {
+        int bestCell = -1;
+        int bestOptions = 0;
+        int bestCount = SIZE + 1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cells[cell] != 0) continue;
+            int options = ALL_VALUES & ~(rows[cell / SIZE] | cols[cell % SIZE] | boxes[boxOf(cell)]);
+            int count = Integer.bitCount(options);
+            if (count == 0) return DEAD_END;
+            if (count < bestCount) {
+                bestCell = cell;
+                bestOptions = options;
+                bestCount = count;
+                if (count == 1) break;
+            }
+        }
+        if (bestCell < 0) return SOLVED;
+
+        frameCell[depth] = bestCell;
+        frameRemaining[depth] = bestOptions;
+        framePlaced[depth] = 0;
+        depth++;
+        return PUSHED;
+    }
+
+    /**
+     * Replaces the top frame's value with its next untried one.
+     *
+     * @return false if the frame had none left and was popped
+     */
+    private boolean placeNextValue() {
+        int top = depth - 1;
+        int cell = frameCell[top];
+        if (framePlaced[top] != 0) clear(cell, framePlaced[top]);
+        int remaining = frameRemaining[top];
+        if (remaining == 0) {
+            framePlaced[top] = 0;
+            depth--;
+            return false;
+        }
+        int bit = remaining & -remaining;
+        frameRemaining[top] = remaining & ~bit;
+        framePlaced[top] = bit;
+        set(cell, bit);
+        return true;
+    }
+
+    /**
+     * Hands half of the untried values of the shallowest frame that has any to
+     * a new enumerator, which searches only those subtrees.
+     *
+     * @return the new enumerator, or null if there is nothing left to split
+     */
+    SolutionEnumerator split() {
+        if (exhausted) return null;
+        if (!started) {
+            // Open the first frame so its values can be shared
+            if (descend() != PUSHED) return null;
+            started = true;
+        }
+        int frame = base;
+        while (frame < depth && frameRemaining[frame] == 0) {
+            frame++;
+        }
+        if (frame == depth) return null;
+
+        int remaining = frameRemaining[frame];
+        int taken = remaining;
+        // Keep the lower half when there are two or more values left
+        for (int keep = Integer.bitCount(remaining) / 2; keep > 0; keep--) {
+            taken &= taken - 1;
+        }
+        frameRemaining[frame] = remaining & ~taken;
+
+        SolutionEnumerator other = new SolutionEnumerator();
+        System.arraycopy(cells, 0, other.cells, 0, CELLS);
+        System.arraycopy(rows, 0, other.rows, 0, SIZE);
+        System.arraycopy(cols, 0, other.cols, 0, SIZE);
+        System.arraycopy(boxes, 0, other.boxes, 0, SIZE);
+        for (int i = frame; i < depth; i++) {
+            if (framePlaced[i] != 0) other.clear(frameCell[i], framePlaced[i]);
+        }
+        System.arraycopy(frameCell, 0, other.frameCell, 0, frame + 1);
+        System.arraycopy(framePlaced, 0, other.framePlaced, 0, frame);
+        other.frameRemaining[frame] = taken;
+        other.depth = frame + 1;
+        other.base = frame;
+        other.started = true;
+        return other;
+    }
+
+    private void set(int cell, int bit) {
+        cells[cell] = Integer.numberOfTrailingZeros(bit);
+        rows[cell / SIZE] |= bit;
+        cols[cell % SIZE] |= bit;
+        boxes[boxOf(cell)] |= bit;
+    }
+
+    private void clear(int cell, int bit) {
+        cells[cell] = 0;
+        rows[cell / SIZE] &= ~bit;
+        cols[cell % SIZE] &= ~bit;
+        boxes[boxOf(cell)] &= ~bit;
+    }
+
+    private static int boxOf(int cell) {
+        return (cell / SIZE) / 3 * 3 + (cell % SIZE) / 3;
+    }
+
+    /**
+     * The size of a search tree is unknown, so like the JDK's iterator
+     * spliterators the estimate halves on every split, which bounds how finely
+     * a parallel stream divides the search.
+     */
+    private static final class Splitter implements Spliterator<int[][]> {
+        private final SolutionEnumerator enumerator;
+        private long estimate;
+
+        Splitter(SolutionEnumerator enumerator, long estimate) {
+            this.enumerator = enumerator;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[][]> action) {
+            if (!enumerator.hasNext()) return false;
+            action.accept(enumerator.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<int[][]> trySplit() {
+            SolutionEnumerator other = enumerator.split();
+            if (other == null) return null;
+            estimate >>>= 1;
+            return new Splitter(other, estimate);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | DISTINCT;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args[0].length() != PackedBoard.CELLS) {
+            System.err.println("Usage: java AICp.SolutionEnumerator <81-character puzzle> [solutions to print]");
+            System.exit(2);
+        }
+        int[][] board = PackedBoard.fromString(args[0]).toArray();
+        int print = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+        stream(board).limit(print).forEach(solution -> System.out.println(PackedBoard.fromArray(solution)));
+        long start = System.nanoTime();
+        long count = stream(board).parallel().count();
+        System.out.printf("%d solutions in %.1f ms%n", count, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,404 @@
+package AICp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP solve service bound to the loopback interface.
+ *
+ * Endpoints (puzzles are 81-character lines, '0' or '.' for empty cells):
+ * <ul>
+ *   <li>{@code POST /solve?engine=MRV} with one puzzle: the solution line, or 422 if unsolved</li>
+ *   <li>{@code POST /batch?engine=MRV} with one puzzle per line: one line per puzzle,
+ *       all zeros for puzzles that were not solved, like {@link BatchRunner}</li>
+ *   <li>{@code GET /stats}: solve and coalescing counters as JSON</li>
+ * </ul>
+ *
+ * Each request runs on its own virtual thread when the JVM supports them and on a
+ * cached thread pool otherwise. Concurrent requests for the same puzzle and engine
+ * share one in-flight solve, and every engine has a concurrency limit. Solutions are
+ * kept in a {@link SolutionCache} per engine, so a repeated puzzle or any symmetric
+ * variant of it is answered without solving again. Solves run
+ * on a fixed pool of platform threads per engine, one per permit, so the solver
+ * state the engines keep per thread is built once per slot and then reused.
+ *
+ * Usage: {@code java AICp.SolveService [--port 8080] [--engine MRV] [--limit ENGINE=N ...]
+ * [--cache N]}
+ */
+public class SolveService implements Closeable {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_CACHE_CAPACITY = 10_000;
+    private static final int MAX_BODY_BYTES = 8 << 20;
+    private static final String UNSOLVED = new PackedBoard().toString();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SudokuEngine defaultEngine;
+    private final Map<SudokuEngine, Semaphore> permits = new EnumMap<>(SudokuEngine.class);
+    private final Map<SudokuEngine, ExecutorService> solvers = new EnumMap<>(SudokuEngine.class);
+    private final Map<SudokuEngine, SolutionCache> caches = new EnumMap<>(SudokuEngine.class);
+    private final ConcurrentHashMap<SolveKey, CompletableFuture<PackedBoard>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param limits maximum concurrent solves per engine; engines not listed use
+     *               {@link #defaultLimit(SudokuEngine)}
+     */
+    public SolveService(int port, SudokuEngine defaultEngine, Map<SudokuEngine, Integer> limits) throws IOException {
+        this(port, defaultEngine, limits, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * @param cacheCapacity solutions cached per engine
+     */
+    public SolveService(int port, SudokuEngine defaultEngine, Map<SudokuEngine, Integer> limits,
+                        int cacheCapacity) throws IOException {
+        this.defaultEngine = defaultEngine;
+        for (SudokuEngine engine : SudokuEngine.values()) {
+            int limit = limits.getOrDefault(engine, defaultLimit(engine));
+            if (limit <= 0) throw new IllegalArgumentException("Limit for " + engine + " must be positive");
+            permits.put(engine, new Semaphore(limit, true));
+            solvers.put(engine, newSolverPool(engine, limit));
+            caches.put(engine, new SolutionCache(cacheCapacity));
+        }
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/solve", exchange -> handle(exchange, false));
+        server.createContext("/batch", exchange -> handle(exchange, true));
+        server.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * One slot per core. Each slot is a long-lived solver thread holding the
+     * engine's pooled search state.
+     */
+    public static int defaultLimit(SudokuEngine engine) {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Solves a puzzle, answering from the engine's cache when it holds the puzzle
+     * or a symmetric variant and otherwise joining an identical solve that is
+     * already running.
+     *
+     * @return the solution, or null if the engine found none
+     */
+    public PackedBoard solve(SudokuEngine engine, PackedBoard puzzle) throws InterruptedException {
+        SolutionCache cache = caches.get(engine);
+        PackedBoard cached = cache.get(puzzle);
+        if (cached != null) return cached;
+
+        SolveKey key = new SolveKey(engine, puzzle);
+        CompletableFuture<PackedBoard> mine = new CompletableFuture<>();
+        CompletableFuture<PackedBoard> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        try {
+            PackedBoard solution = solveLimited(engine, puzzle);
+            if (solution != null) cache.put(puzzle, solution);
+            mine.complete(solution);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return mine.join();
+    }
+
+    /**
+     * Waits for a permit, then solves on the engine's pool. The permit is held
+     * until the solve finishes, even if the caller stops waiting, so the pool
+     * never has more solves than threads.
+     */
+    private PackedBoard solveLimited(SudokuEngine engine, PackedBoard puzzle) throws InterruptedException {
+        Semaphore semaphore = permits.get(engine);
+        semaphore.acquire();
+        CompletableFuture<PackedBoard> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    solves.increment();
+                    int[][] grid = puzzle.toArray();
+                    return engine.solve(grid) ? PackedBoard.fromArray(grid) : null;
+                } finally {
+                    semaphore.release();
+                }
+            }, solvers.get(engine));
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            throw e;
+        }
+        return await(result);
+    }
+
+    private static PackedBoard await(CompletableFuture<PackedBoard> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Coalesced solve failed", cause);
+        }
+    }
+
+    private void handle(HttpExchange exchange, boolean batch) throws IOException {
+        requests.increment();
+        try (exchange) {
+            respond(exchange, batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void respond(HttpExchange exchange, boolean batch) throws IOException, InterruptedException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Use POST\n");
+                return;
+            }
+            SudokuEngine engine;
+            String[] lines;
+            try {
+                engine = engineParameter(exchange.getRequestURI());
+                lines = readBody(exchange).split("\\R");
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            // Validate the whole request before solving any of it
+            List<PackedBoard> puzzles = new ArrayList<>();
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                try {
+                    puzzles.add(parsePuzzle(line));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "Puzzle " + (puzzles.size() + 1) + ": " + e.getMessage() + "\n");
+                    return;
+                }
+            }
+            if (puzzles.isEmpty() || (!batch && puzzles.size() > 1)) {
+                send(exchange, 400, puzzles.isEmpty() ? "No puzzle in request body\n"
+                        : "Expected one puzzle; use /batch for several\n");
+                return;
+            }
+
+            StringBuilder response = new StringBuilder(puzzles.size() * (PackedBoard.CELLS + 1));
+            for (PackedBoard puzzle : puzzles) {
+                PackedBoard solution = solve(engine, puzzle);
+                if (!batch && solution == null) {
+                    send(exchange, 422, "No solution found\n");
+                    return;
+                }
+                response.append(solution == null ? UNSOLVED : solution.toString()).append('\n');
+            }
+            send(exchange, 200, response.toString());
+        } catch (RuntimeException e) {
+            send(exchange, 500, "Solver failed: " + e + "\n");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder json = new StringBuilder("{\"requests\":").append(requests.sum())
+                    .append(",\"solves\":").append(solves.sum())
+                    .append(",\"coalesced\":").append(coalesced.sum())
+                    .append(",\"inFlight\":").append(inFlight.size());
+            long hits = 0;
+            long misses = 0;
+            long evictions = 0;
+            int cached = 0;
+            for (SolutionCache cache : caches.values()) {
+                hits += cache.getHits();
+                misses += cache.getMisses();
+                evictions += cache.getEvictions();
+                cached += cache.size();
+            }
+            json.append(",\"cache\":{\"hits\":").append(hits)
+                    .append(",\"misses\":").append(misses)
+                    .append(",\"evictions\":").append(evictions)
+                    .append(",\"hitRate\":").append(hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                    .append(",\"size\":").append(cached).append('}')
+                    .append(",\"availablePermits\":{");
+            boolean first = true;
+            for (Map.Entry<SudokuEngine, Semaphore> entry : permits.entrySet()) {
+                if (!first) json.append(',');
+                json.append('"').append(entry.getKey().name()).append("\":").append(entry.getValue().availablePermits());
+                first = false;
+            }
+            json.append("}}\n");
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            send(exchange, 200, json.toString());
+        }
+    }
+
+    private SudokuEngine engineParameter(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("engine=")) {
+                    return SudokuEngine.fromName(java.net.URLDecoder.decode(
+                            parameter.substring("engine=".length()), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return defaultEngine;
+    }
+
+    /**
+     * Rejects malformed lines and givens that already conflict, which some
+     * engines would otherwise search for a long time.
+     */
+    private static PackedBoard parsePuzzle(String line) {
+        if (line.length() != PackedBoard.CELLS) {
+            throw new IllegalArgumentException("Expected " + PackedBoard.CELLS + " cells but got " + line.length());
+        }
+        PackedBoard puzzle = PackedBoard.fromString(line);
+        ConflictTracker tracker = new ConflictTracker();
+        for (int cell = 0; cell < PackedBoard.CELLS; cell++) {
+            tracker.set(cell / PackedBoard.SIZE, cell % PackedBoard.SIZE, puzzle.get(cell));
+        }
+        if (tracker.hasConflicts()) throw new IllegalArgumentException("Givens conflict");
+        return puzzle;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(body, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * One virtual thread per request where available (Java 21+), looked up
+     * reflectively so the service still builds and runs on older JDKs.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "solve-service");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Platform threads that live as long as the service, so thread-local solver
+     * state survives between requests, unlike on per-request virtual threads.
+     */
+    private static ExecutorService newSolverPool(SudokuEngine engine, int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "solve-" + engine.name().toLowerCase() + "-" + ++count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        for (ExecutorService pool : solvers.values()) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class SolveKey {
+        final SudokuEngine engine;
+        final PackedBoard puzzle;
+
+        SolveKey(SudokuEngine engine, PackedBoard puzzle) {
+            this.engine = engine;
+            this.puzzle = puzzle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SolveKey)) return false;
+            SolveKey other = (SolveKey) o;
+            return engine == other.engine && puzzle.equals(other.puzzle);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(engine, puzzle);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        SudokuEngine engine = SudokuEngine.MRV;
+        Map<SudokuEngine, Integer> limits = new EnumMap<>(SudokuEngine.class);
+        int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--engine":
+                    engine = SudokuEngine.fromName(args[++i]);
+                    break;
+                case "--limit":
+                    String[] parts = args[++i].split("=", 2);
+                    limits.put(SudokuEngine.fromName(parts[0]), Integer.parseInt(parts[1]));
+                    break;
+                case "--cache":
+                    cacheCapacity = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        SolveService service = new SolveService(port, engine, limits, cacheCapacity);
+        service.start();
+        System.out.println("Solve service listening on http://localhost:" + service.getPort());
+    }
+}
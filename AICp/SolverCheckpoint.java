@@ -0,0 +1,174 @@
+package AICp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Binary checkpoints that let long genetic and annealing solves resume after
+ * the process is killed.
+ *
+ * Checkpointing is off unless {@code -Dsudoku.checkpoint.dir=<dir>} is set. Solvers
+ * then snapshot their state every {@code -Dsudoku.checkpoint.seconds} (default 60)
+ * and a later solve of the same puzzle by the same engine resumes from the file,
+ * which is deleted once the solve finishes.
+ *
+ * Layout: a big-endian header (magic "SDKC", format version, engine) and the
+ * puzzle as {@link PackedBoard#RECORD_BYTES} bytes, followed by the engine's own
+ * state, which starts with its {@link Xoshiro256} state. Snapshots are encoded
+ * on the solver thread and written on a single background thread, to a temporary
+ * file that is then renamed over the previous checkpoint, so a crash mid-write
+ * never leaves a torn file.
+ */
+public final class SolverCheckpoint {
+    public static final int MAGIC = 0x53444B43; // "SDKC"
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 12 + PackedBoard.RECORD_BYTES;
+    public static final int RANDOM_BYTES = 32;
+    public static final int GENETIC = 1;
+    public static final int ANNEALING = 2;
+
+    private static final String[] PREFIXES = {null, "ga-", "sa-"};
+    private static final Path DIRECTORY = directory();
+    public static final long INTERVAL_NANOS =
+            TimeUnit.SECONDS.toNanos(Long.getLong("sudoku.checkpoint.seconds", 60));
+
+    // Snapshots waiting to be written; a newer one replaces a queued older one
+    private static final ConcurrentHashMap<Path, ByteBuffer> PENDING = new ConcurrentHashMap<>();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "solver-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Give queued snapshots a chance to reach disk when the process is told to stop
+        if (DIRECTORY != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(SolverCheckpoint::flush, "solver-checkpoint-flush"));
+        }
+    }
+
+    private SolverCheckpoint() {
+    }
+
+    private static Path directory() {
+        String dir = System.getProperty("sudoku.checkpoint.dir");
+        return dir == null || dir.isEmpty() ? null : Paths.get(dir);
+    }
+
+    public static boolean isEnabled() {
+        return DIRECTORY != null;
+    }
+
+    /**
+     * @return the checkpoint file for the engine and puzzle, or null when checkpointing is off
+     */
+    public static Path path(int engine, int[][] puzzle) {
+        if (DIRECTORY == null) return null;
+        return DIRECTORY.resolve(PREFIXES[engine] + PackedBoard.fromArray(puzzle) + ".ckpt");
+    }
+
+    /**
+     * @return a buffer holding the header, positioned for the engine's state
+     */
+    public static ByteBuffer allocate(int engine, int[][] puzzle, int stateBytes) {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + stateBytes);
+        data.putInt(MAGIC).putInt(VERSION).putInt(engine);
+        PackedBoard.fromArray(puzzle).writeTo(data);
+        return data;
+    }
+
+    public static void putRandom(ByteBuffer data, Xoshiro256 random) {
+        for (long word : random.getState()) {
+            data.putLong(word);
+        }
+    }
+
+    public static long[] getRandom(ByteBuffer data) {
+        return new long[]{data.getLong(), data.getLong(), data.getLong(), data.getLong()};
+    }
+
+    /**
+     * @return the checkpoint positioned after its header, or null if there is none
+     *         or it belongs to another engine, puzzle or format version
+     */
+    public static ByteBuffer read(Path path, int engine, int[][] puzzle) {
+        if (path == null || !Files.isRegularFile(path)) return null;
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC
+                    || data.getInt() != VERSION || data.getInt() != engine) {
+                System.err.println("Ignoring incompatible checkpoint " + path);
+                return null;
+            }
+            PackedBoard stored = new PackedBoard();
+            stored.readFrom(data);
+            if (!stored.equals(PackedBoard.fromArray(puzzle))) {
+                System.err.println("Ignoring checkpoint for another puzzle " + path);
+                return null;
+            }
+            return data;
+        } catch (IOException e) {
+            System.err.println("Could not read checkpoint " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Queues a snapshot built with {@link #allocate} for writing.
+     */
+    public static void write(Path path, ByteBuffer data) {
+        data.flip();
+        if (PENDING.put(path, data) == null) {
+            WRITER.execute(() -> writePending(path));
+        }
+    }
+
+    /**
+     * Deletes the checkpoint after any queued write of it.
+     */
+    public static void delete(Path path) {
+        WRITER.execute(() -> {
+            PENDING.remove(path);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Could not delete checkpoint " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits until every queued write and delete has finished.
+     */
+    public static void flush() {
+        try {
+            WRITER.submit(() -> { }).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            System.err.println("Checkpoint writes did not finish: " + e);
+        }
+    }
+
+    private static void writePending(Path path) {
+        ByteBuffer data = PENDING.remove(path);
+        if (data == null) return;
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Could not write checkpoint " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package AICp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Low-overhead search instrumentation shared by all engines.
+ *
+ * Solvers bump plain per-thread counters and phase timers while they run.
+ * {@link SudokuEngine#solve(int[][])} brackets every solve with {@link #begin()}
+ * and {@link #finish(String, boolean)}, which turns the thread's counters into an
+ * immutable {@link Snapshot}, merges it into {@link MetricsRegistry#global()} and
+ * hands it to the registered listeners (for example a JSON-lines exporter).
+ */
+public final class SolverMetrics {
+
+    public enum Count {
+        NODES,
+        BACKTRACKS,
+        PROPAGATIONS,
+        ITERATIONS,
+        ACCEPTED_MOVES,
+        TEMPERATURE_STEPS,
+        GENERATIONS,
+        FITNESS_EVALUATIONS,
+        RESTARTS
+    }
+
+    public enum Phase {
+        INITIALIZATION,
+        PROPAGATION,
+        SEARCH
+    }
+
+    public interface Listener {
+        void onSolve(Snapshot snapshot);
+    }
+
+    /**
+     * Thrown from inside a solve once a counter passes the limit set with
+     * {@link #limit(Count, long)}, abandoning the search.
+     */
+    public static final class LimitExceededException extends RuntimeException {
+        LimitExceededException(Count count, long limit) {
+            super(count.name().toLowerCase() + " limit of " + limit + " exceeded", null, false, false);
+        }
+    }
+
+    private static final class Recorder {
+        final long[] counts = new long[Count.values().length];
+        final long[] limits = newLimits();
+        final long[] phaseNanos = new long[Phase.values().length];
+        long startNanos;
+        PackedBoard puzzle;
+    }
+
+    private static final ThreadLocal<Recorder> LOCAL = ThreadLocal.withInitial(Recorder::new);
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private SolverMetrics() {
+    }
+
+    private static long[] newLimits() {
+        long[] limits = new long[Count.values().length];
+        Arrays.fill(limits, Long.MAX_VALUE);
+        return limits;
+    }
+
+    public static void increment(Count count) {
+        Recorder recorder = LOCAL.get();
+        int i = count.ordinal();
+        if (++recorder.counts[i] > recorder.limits[i]) throw new LimitExceededException(count, recorder.limits[i]);
+    }
+
+    public static void add(Count count, long amount) {
+        Recorder recorder = LOCAL.get();
+        int i = count.ordinal();
+        if ((recorder.counts[i] += amount) > recorder.limits[i]) {
+            throw new LimitExceededException(count, recorder.limits[i]);
+        }
+    }
+
+    /**
+     * Caps a counter for this thread's solves until {@link #clearLimits()}, so
+     * tools probing for slow puzzles cannot stall on one.
+     */
+    public static void limit(Count count, long max) {
+        LOCAL.get().limits[count.ordinal()] = max;
+    }
+
+    public static void clearLimits() {
+        Arrays.fill(LOCAL.get().limits, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return a start timestamp to pass to {@link #phaseEnd(Phase, long)}
+     */
+    public static long phaseStart() {
+        return System.nanoTime();
+    }
+
+    public static void phaseEnd(Phase phase, long start) {
+        LOCAL.get().phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Clears this thread's counters and starts the solve clock.
+     */
+    public static void begin() {
+        Recorder recorder = LOCAL.get();
+        Arrays.fill(recorder.counts, 0L);
+        Arrays.fill(recorder.phaseNanos, 0L);
+        recorder.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the puzzle with the next solve this thread finishes, so exported
+     * results can be related to the puzzle (see {@link EngineSelector#train}).
+     */
+    public static void labelPuzzle(PackedBoard puzzle) {
+        LOCAL.get().puzzle = puzzle;
+    }
+
+    /**
+     * Captures this thread's counters, publishes them and returns the snapshot.
+     */
+    public static Snapshot finish(String engine, boolean solved) {
+        Recorder recorder = LOCAL.get();
+        Snapshot snapshot = new Snapshot(engine, solved, System.nanoTime() - recorder.startNanos,
+                recorder.counts.clone(), recorder.phaseNanos.clone(), recorder.puzzle);
+        recorder.puzzle = null;
+        MetricsRegistry.global().record(snapshot);
+        for (Listener listener : listeners) {
+            listener.onSolve(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the counters gathered on this thread since the last {@link #begin()}
+     * without publishing them.
+     */
+    public static Snapshot peek(String engine) {
+        Recorder recorder = LOCAL.get();
+        return new Snapshot(engine, false, System.nanoTime() - recorder.startNanos,
+                recorder.counts.clone(), recorder.phaseNanos.clone(), recorder.puzzle);
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Immutable metrics for a single solve.
+     */
+    public static final class Snapshot {
+        private final String engine;
+        private final boolean solved;
+        private final long elapsedNanos;
+        private final long[] counts;
+        private final long[] phaseNanos;
+        private final PackedBoard puzzle;
+
+        Snapshot(String engine, boolean solved, long elapsedNanos, long[] counts, long[] phaseNanos,
+                 PackedBoard puzzle) {
+            this.engine = engine;
+            this.solved = solved;
+            this.elapsedNanos = elapsedNanos;
+            this.counts = counts;
+            this.phaseNanos = phaseNanos;
+            this.puzzle = puzzle;
+        }
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public boolean isSolved() {
+            return solved;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long get(Count count) {
+            return counts[count.ordinal()];
+        }
+
+        public long getPhaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+
+        /**
+         * @return the puzzle given to {@link #labelPuzzle}, or null
+         */
+        public PackedBoard getPuzzle() {
+            return puzzle;
+        }
+
+        /**
+         * Renders the snapshot as a single-line JSON object.
+         */
+        public String toJson() {
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("{\"engine\":\"").append(engine).append('"')
+              .append(",\"solved\":").append(solved)
+              .append(",\"elapsedNanos\":").append(elapsedNanos);
+            for (Count count : Count.values()) {
+                long value = counts[count.ordinal()];
+                if (value != 0) {
+                    sb.append(",\"").append(count.name().toLowerCase()).append("\":").append(value);
+                }
+            }
+            for (Phase phase : Phase.values()) {
+                long value = phaseNanos[phase.ordinal()];
+                if (value != 0) {
+                    sb.append(",\"").append(phase.name().toLowerCase()).append("Nanos\":").append(value);
+                }
+            }
+            if (puzzle != null) {
+                sb.append(",\"puzzle\":\"").append(puzzle).append('"');
+            }
+            return sb.append('}').toString();
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package AICp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Searches for puzzles that make each engine do the most work and records them
+ * in a versioned stress corpus.
+ *
+ * For every engine it hill-climbs from random unique puzzles. Each step proposes
+ * neighbours that move, remove or add one clue while keeping the solution unique,
+ * scores them in parallel by the engine's search work (nodes plus iterations plus
+ * generations, with a fixed seed) and moves to the best one unless it does less
+ * work, or the same work with more clues. A solve stops at the work budget, so
+ * puzzles that reach it, or that the engine fails to solve, count as equally bad.
+ *
+ * Each run writes {@code stress-v<N>.txt} in the output directory, N being one
+ * more than the newest version there, in the text corpus format: one puzzle per
+ * line followed by the engine it targets and its work. Benchmark it with
+ * {@code EngineBenchmark --corpus stress/stress-v<N>.txt}.
+ *
+ * Usage: {@code java AICp.StressCorpusBuilder [--dir stress] [--engines NAME,NAME]
+ * [--puzzles N] [--steps N] [--neighbours N] [--budget WORK] [--seed S]}
+ */
+public class StressCorpusBuilder {
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int MIN_CLUES = 17;
+    private static final Pattern VERSION = Pattern.compile("stress-v(\\d+)\\.txt");
+
+    private final SudokuEngine engine;
+    private final long budget;
+    private final long seed;
+    private final Random rand;
+
+    public StressCorpusBuilder(SudokuEngine engine, long budget, long seed) {
+        this.engine = engine;
+        this.budget = budget;
+        this.seed = seed;
+        this.rand = new Xoshiro256(seed);
+    }
+
+    /**
+     * Climbs from a random unique puzzle for the given number of steps.
+     *
+     * @return the hardest puzzle found; {@link #work} gives its score
+     */
+    public int[][] climb(int steps, int neighbours) {
+        int[][] solution = new SudokuLogicBackTracking(rand.nextLong()).generateSolution();
+        int[][] current = PuzzleGrader.digUnique(solution, rand);
+        long currentWork = work(current);
+        int currentClues = clues(current);
+
+        int[][][] candidates = new int[neighbours][][];
+        for (int step = 0; step < steps && currentWork < budget; step++) {
+            for (int i = 0; i < neighbours; i++) {
+                candidates[i] = neighbour(current, solution);
+            }
+            // Uniqueness checks and scoring dominate, so both run in parallel
+            long[] scores = IntStream.range(0, neighbours).parallel()
+                    .mapToLong(i -> PuzzleGrader.hasUniqueSolution(candidates[i]) ? work(candidates[i]) : -1)
+                    .toArray();
+            int best = 0;
+            for (int i = 1; i < neighbours; i++) {
+                if (isHarder(scores[i], clues(candidates[i]), scores[best], clues(candidates[best]))) best = i;
+            }
+            // Sideways moves let the climb cross plateaus
+            int bestClues = clues(candidates[best]);
+            if (scores[best] >= 0 && !isHarder(currentWork, currentClues, scores[best], bestClues)) {
+                current = candidates[best];
+                currentWork = scores[best];
+                currentClues = bestClues;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Ranks by work, then by fewer clues, which steers the climb through the
+     * many puzzles that an engine solves with no search at all.
+     */
+    private static boolean isHarder(long work, int clues, long otherWork, int otherClues) {
+        return work != otherWork ? work > otherWork : clues < otherClues;
+    }
+
+    private static int clues(int[][] puzzle) {
+        int count = 0;
+        for (int[] row : puzzle) {
+            for (int value : row) {
+                if (value != 0) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the engine's search work on the puzzle, capped at the budget, or
+     *         the budget if the engine does not solve it
+     */
+    public long work(int[][] puzzle) {
+        int[][] grid = new int[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            grid[i] = puzzle[i].clone();
+        }
+        SolverMetrics.limit(SolverMetrics.Count.NODES, budget);
+        SolverMetrics.limit(SolverMetrics.Count.ITERATIONS, budget);
+        SolverMetrics.limit(SolverMetrics.Count.GENERATIONS, budget);
+        try {
+            SolverMetrics.Snapshot snapshot = engine.solveMeasured(grid, seed);
+            // Every candidate has a unique solution, so failing on it is the worst case
+            if (!snapshot.isSolved()) return budget;
+            long work = snapshot.get(SolverMetrics.Count.NODES) + snapshot.get(SolverMetrics.Count.ITERATIONS)
+                    + snapshot.get(SolverMetrics.Count.GENERATIONS);
+            return Math.min(work, budget);
+        } catch (SolverMetrics.LimitExceededException e) {
+            return budget;
+        } finally {
+            SolverMetrics.clearLimits();
+        }
+    }
+
+    /**
+     * Moves, removes or adds one clue, taking added values from the solution.
+     */
+    private int[][] neighbour(int[][] puzzle, int[][] solution) {
+        int[][] next = new int[SIZE][];
+        int clues = 0;
+        for (int i = 0; i < SIZE; i++) {
+            next[i] = puzzle[i].clone();
+            for (int value : next[i]) {
+                if (value != 0) clues++;
+            }
+        }
+        int move = rand.nextInt(3);
+        if (move != 2 && clues > MIN_CLUES) {
+            int cell = randomCell(next, true);
+            next[cell / SIZE][cell % SIZE] = 0;
+        }
+        if (move != 1 || clues <= MIN_CLUES) {
+            int cell = randomCell(next, false);
+            next[cell / SIZE][cell % SIZE] = solution[cell / SIZE][cell % SIZE];
+        }
+        return next;
+    }
+
+    private int randomCell(int[][] board, boolean filled) {
+        while (true) {
+            int cell = rand.nextInt(CELLS);
+            if ((board[cell / SIZE][cell % SIZE] != 0) == filled) return cell;
+        }
+    }
+
+    /**
+     * @return the path for the next corpus version in the directory
+     */
+    static Path nextVersion(Path dir) throws IOException {
+        int latest = 0;
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "stress-v*.txt")) {
+                for (Path file : files) {
+                    Matcher matcher = VERSION.matcher(file.getFileName().toString());
+                    if (matcher.matches()) latest = Math.max(latest, Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return dir.resolve("stress-v" + (latest + 1) + ".txt");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("stress");
+        List<SudokuEngine> engines = new ArrayList<>(Arrays.asList(SudokuEngine.BACKTRACKING, SudokuEngine.MRV,
+                SudokuEngine.CONSTRAINT_PROGRAMMING, SudokuEngine.SAT));
+        int puzzles = 5;
+        int steps = 100;
+        int neighbours = 4 * Runtime.getRuntime().availableProcessors();
+        long budget = 2_000_000;
+        long seed = ThreadLocalRandom.current().nextLong();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dir":
+                    dir = Paths.get(args[++i]);
+                    break;
+                case "--engines":
+                    engines.clear();
+                    for (String name : args[++i].split(",")) {
+                        engines.add(SudokuEngine.fromName(name.trim()));
+                    }
+                    break;
+                case "--puzzles":
+                    puzzles = Integer.parseInt(args[++i]);
+                    break;
+                case "--steps":
+                    steps = Integer.parseInt(args[++i]);
+                    break;
+                case "--neighbours":
+                    neighbours = Integer.parseInt(args[++i]);
+                    break;
+                case "--budget":
+                    budget = Long.parseLong(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Files.createDirectories(dir);
+        Path out = nextVersion(dir);
+        Set<PackedBoard> seen = new HashSet<>();
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.US_ASCII)) {
+            writer.write("# Sudoku stress corpus " + out.getFileName() + ", built " + LocalDate.now() + "\n");
+            writer.write("# seed " + seed + ", budget " + budget + ", " + steps + " steps of "
+                    + neighbours + " neighbours\n");
+            for (SudokuEngine engine : engines) {
+                StressCorpusBuilder builder = new StressCorpusBuilder(engine, budget, seed ^ engine.ordinal());
+                for (int i = 0; i < puzzles; i++) {
+                    int[][] puzzle = builder.climb(steps, neighbours);
+                    PackedBoard packed = PackedBoard.fromArray(puzzle);
+                    long work = builder.work(puzzle);
+                    System.out.printf("%-24s %s %d%n", engine.getDisplayName(), packed, work);
+                    if (seen.add(packed)) {
+                        writer.write(packed + " " + engine.name() + " " + work + "\n");
+                    }
+                }
+            }
+        }
+        System.out.println("Wrote " + out);
+    }
+}
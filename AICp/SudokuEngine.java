@@ -0,0 +1,98 @@
+package AICp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The solving engines available to the GUI and the headless tools.
+ * Every engine solves a 9x9 {@code int[][]} board in-place, 0 marking empty cells.
+ */
+public enum SudokuEngine {
+    BACKTRACKING("Backtracking", (board, seed) -> SudokuLogicBackTracking.solvePooled(board)),
+    CONSTRAINT_PROGRAMMING("Constraint Programming", (board, seed) -> SudokuSolverCP.solveSudokuConstraint(board)),
+    MRV("MRV", (board, seed) -> SudokuSolverMRV.solve(board)),
+    SIMULATED_ANNEALING("Simulated Anneling", SimulatedAnnealingSudoku::solve),
+    GENETIC_ALGORITHM("Genetic Algo", SudokuGA::solve),
+    SAT("SAT (CDCL)", (board, seed) -> SudokuSolverSAT.solve(board)),
+    TABU_SEARCH("Tabu Search", TabuSearchSudoku::solve),
+    // Dispatches to the engine an EngineSelector table expects to be fastest
+    AUTO("Auto", EngineSelector::solve);
+
+    /**
+     * Solves a board in-place. Stochastic engines draw every random choice from
+     * a generator seeded with {@code seed}; the others ignore it.
+     */
+    @FunctionalInterface
+    interface Solver {
+        boolean solve(int[][] board, long seed);
+    }
+
+    private final String displayName;
+    private final Solver solver;
+
+    SudokuEngine(String displayName, Solver solver) {
+        this.displayName = displayName;
+        this.solver = solver;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public boolean solve(int[][] board) {
+        return solveMeasured(board).isSolved();
+    }
+
+    /**
+     * Solves with a fixed seed, so a stochastic engine repeats the same run.
+     */
+    public boolean solve(int[][] board, long seed) {
+        return solveMeasured(board, seed).isSolved();
+    }
+
+    /**
+     * Solves the board in-place with a random seed and returns the solve's
+     * published {@link SolverMetrics}.
+     */
+    public SolverMetrics.Snapshot solveMeasured(int[][] board) {
+        return solveMeasured(board, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Solves without bracketing the solve in {@link SolverMetrics}, for engines
+     * that delegate to another.
+     */
+    boolean solveUnmeasured(int[][] board, long seed) {
+        return solver.solve(board, seed);
+    }
+
+    public SolverMetrics.Snapshot solveMeasured(int[][] board, long seed) {
+        SolverMetrics.begin();
+        boolean solved;
+        try {
+            solved = solver.solve(board, seed);
+        } catch (RuntimeException | Error e) {
+            SolverMetrics.finish(name(), false);
+            throw e;
+        }
+        return SolverMetrics.finish(name(), solved);
+    }
+
+    public boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    /**
+     * Looks an engine up by constant name or display name, ignoring case.
+     */
+    public static SudokuEngine fromName(String name) {
+        for (SudokuEngine engine : values()) {
+            if (engine.name().equalsIgnoreCase(name) || engine.displayName.equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+}
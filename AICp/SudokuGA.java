@@ -1,337 +1,482 @@
 package AICp;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class SudokuGA {
     private static final int SIZE = 9;
-    private static final int SUBGRID = 3;
     private static final int POPULATION_SIZE = 1000;
     private static final int MAX_GENERATIONS = 1000;
     private static final double MUTATION_RATE = 0.1;
     private static final double CROSSOVER_RATE = 0.95;
     private static final int STAGNATION_LIMIT = 50;
-    private static final Random rand = new Random();
-
+    private static final int ELITE_POOL_SIZE = 50;
+    // Scores whole populations at once, with SIMD when the vector module is available
+    private static final BoardBatchEvaluator EVALUATOR = BoardBatchEvaluator.create();
+    // Set -Dsudoku.trace=true to print progress every 10 generations
+    private static final boolean TRACE = Boolean.getBoolean("sudoku.trace");
+    // One GA per thread, so repeated solves reuse its populations and buffers
+    private static final ThreadLocal<SudokuGA> POOL = ThreadLocal.withInitial(SudokuGA::new);
+
+    private final Xoshiro256 rand = new Xoshiro256();
+    private final int[][] initialBoard = new int[SIZE][SIZE];
+    // Candidate digits of every cell (row * SIZE + col) as bitmasks, from propagation
+    private final int[] candidates = new int[SIZE * SIZE];
+    // The first freeCounts[row] entries are the columns of the row's free cells
+    private final int[][] freePositions = new int[SIZE][SIZE];
+    private final int[] freeCounts = new int[SIZE];
+    // The current generation and the one being bred, swapped every generation
+    private int[][][] population = newBoards(POPULATION_SIZE);
+    private int[][][] offspring = newBoards(POPULATION_SIZE);
+    private final int[][] spareChild = new int[SIZE][SIZE];
+    private final BoardBatch batch = new BoardBatch(POPULATION_SIZE);
+    private final int[] fitness = new int[POPULATION_SIZE];
+    // Indices into the population of the tournament winners, and their fitness
+    private final int[] matingPool = new int[POPULATION_SIZE];
+    private final int[] matingFitness = new int[POPULATION_SIZE];
+    // Best distinct boards of the current solve; kept across restarts to reseed the population
+    private final int[][][] elites = newBoards(ELITE_POOL_SIZE);
+    private final int[] eliteFitness = new int[ELITE_POOL_SIZE];
+    private int eliteCount;
+    private final FingerprintSet seenSolutions = new FingerprintSet(MAX_GENERATIONS);
+    private final FingerprintSet uniqueBoards = new FingerprintSet(POPULATION_SIZE);
+    // Scratch for generateCandidate and crossover
+    private final int[] digits = new int[SIZE];
+    private final int[] columns = new int[SIZE];
+    private final int[] positionInFirst = new int[SIZE + 1];
+    private final boolean[] visited = new boolean[SIZE];
+    // Progress of the current run, saved in checkpoints
+    private int generation;
+    private int bestFitness;
+    private int stagnationCounter;
+    private final PackedBoard packed = new PackedBoard();
+
+    /**
+     * Solves with this thread's pooled GA instance and a random seed.
+     */
     public static boolean solve(int[][] board) {
+        return solve(board, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Solves with every random choice drawn from {@code seed}, so the same
+     * puzzle and seed repeat the same run.
+     */
+    public static boolean solve(int[][] board, long seed) {
+        return POOL.get().search(board, seed);
+    }
+
+    private boolean search(int[][] board, long seed) {
+        rand.setSeed(seed);
         try {
-            // Create a copy of the initial board
-            int[][] initialBoard = new int[SIZE][SIZE];
+            // Copy the initial board
             for (int i = 0; i < SIZE; i++) {
                 System.arraycopy(board[i], 0, initialBoard[i], 0, SIZE);
             }
 
-            // Pre-process to find fixed cells and available numbers for each cell
-            boolean[][][] fixedCells = new boolean[SIZE][SIZE][SIZE + 1];
-            List<Integer>[][] availableNumbers = preprocessBoard(initialBoard);
+            long start = SolverMetrics.phaseStart();
+            boolean consistent = CandidatePropagator.propagate(initialBoard, true, candidates);
+            SolverMetrics.phaseEnd(SolverMetrics.Phase.PROPAGATION, start);
 
-            // If any cell has no available numbers, the puzzle is unsolvable
-            if (!isValidInitialBoard(availableNumbers)) {
-                System.out.println("No valid solutions possible with current constraints");
+            // If propagation hits a contradiction, the puzzle is unsolvable
+            if (!consistent) {
+                if (TRACE) System.out.println("No valid solutions possible with current constraints");
                 return false;
             }
 
-            List<int[][]> population = initializePopulation(initialBoard, availableNumbers);
-            int bestFitness = Integer.MIN_VALUE;
-            int stagnationCounter = 0;
-            int[][] lastBestSolution = null;
-            
-            // Track best solutions for diversity
-            Set<String> seenSolutions = new HashSet<>();
-            List<int[][]> elitePool = new ArrayList<>();
-
-            for (int generation = 0; generation < MAX_GENERATIONS; generation++) {
-                // Adaptive mutation rate based on population diversity
-                double currentDiversity = calculateDiversity(population);
-                double adaptiveMutationRate = MUTATION_RATE * (1 + (1 - currentDiversity));
-
-                // Get mating pool using improved selection
-                List<int[][]> matingPool = getMatingPool(population, generation);
-                
-                // Create new population through improved crossover and mutation
-                population = evolvePopulation(matingPool, initialBoard, availableNumbers, adaptiveMutationRate);
-                
-                // Find best solution
-                int[][] bestSolution = getBestSolution(population);
-                int currentFitness = calculateFitness(bestSolution);
-                
-                // Store unique elite solutions
-                String solutionHash = boardToString(bestSolution);
-                if (!seenSolutions.contains(solutionHash) && currentFitness > -10) {
-                    seenSolutions.add(solutionHash);
-                    elitePool.add(cloneBoard(bestSolution));
-                    if (elitePool.size() > 50) { // Keep top 50 unique solutions
-                        elitePool.sort((a, b) -> calculateFitness(b) - calculateFitness(a));
-                        elitePool = elitePool.subList(0, 50);
-                    }
-                }
-
-                // Print progress every 10 generations
-                if (generation % 10 == 0) {
-                    System.out.println("Generation " + generation + 
-                                     ", Best Fitness: " + currentFitness + 
-                                     ", Diversity: " + String.format("%.2f", currentDiversity) +
-                                     ", Mutation Rate: " + String.format("%.2f", adaptiveMutationRate) +
-                                     ", Elite Pool: " + elitePool.size());
-                }
-
-                // Check for improvement
-                if (currentFitness > bestFitness) {
-                    bestFitness = currentFitness;
-                    lastBestSolution = bestSolution;
-                    stagnationCounter = 0;
-                } else {
-                    stagnationCounter++;
-                }
-
-                // Solution found
-                if (currentFitness == 0) {
-                    System.out.println("Solution found at generation " + generation);
-                    for (int i = 0; i < SIZE; i++) {
-                        System.arraycopy(bestSolution[i], 0, board[i], 0, SIZE);
-                    }
-                    return true;
+            // Propagation alone may have solved it
+            if (isFilled(initialBoard)) {
+                for (int i = 0; i < SIZE; i++) {
+                    System.arraycopy(initialBoard[i], 0, board[i], 0, SIZE);
                 }
+                return true;
+            }
 
-                // If stuck, try to escape local optima
-                if (stagnationCounter >= STAGNATION_LIMIT) {
-                    System.out.println("Attempting to escape local optimum...");
-                    
-                    // Mix elite solutions with new random solutions
-                    population = new ArrayList<>();
-                    population.addAll(elitePool);
-                    
-                    // Add some completely new solutions
-                    while (population.size() < POPULATION_SIZE) {
-                        population.add(generateCandidate(initialBoard, availableNumbers));
-                    }
-                    
-                    // Clear seen solutions but keep elite pool
-                    seenSolutions.clear();
-                    stagnationCounter = 0;
+            start = SolverMetrics.phaseStart();
+            findFreePositions();
+            Path checkpoint = SolverCheckpoint.path(SolverCheckpoint.GENETIC, board);
+            if (!resume(checkpoint, board)) {
+                for (int[][] candidate : population) {
+                    generateCandidate(candidate);
                 }
+                generation = 0;
+                bestFitness = Integer.MIN_VALUE;
+                stagnationCounter = 0;
+                // Track best solutions for diversity
+                seenSolutions.clear();
+                eliteCount = 0;
             }
-            
-            return false;
+            SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+            start = SolverMetrics.phaseStart();
+            try {
+                return evolve(board, checkpoint);
+            } finally {
+                SolverMetrics.phaseEnd(SolverMetrics.Phase.SEARCH, start);
+                if (checkpoint != null) SolverCheckpoint.delete(checkpoint);
+            }
+        } catch (SolverMetrics.LimitExceededException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
     }
 
-    private static List<Integer>[][] preprocessBoard(int[][] board) {
-        @SuppressWarnings("unchecked")
-        List<Integer>[][] availableNumbers = new List[SIZE][SIZE];
-        
-        // Initialize available numbers for each cell
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                availableNumbers[row][col] = new ArrayList<>();
-                if (board[row][col] == 0) {
-                    boolean[] used = new boolean[SIZE + 1];
-                    
-                    // Check row
-                    for (int i = 0; i < SIZE; i++) {
-                        used[board[row][i]] = true;
-                    }
-                    
-                    // Check column
-                    for (int i = 0; i < SIZE; i++) {
-                        used[board[i][col]] = true;
-                    }
-                    
-                    // Check block
-                    int blockRow = (row / SUBGRID) * SUBGRID;
-                    int blockCol = (col / SUBGRID) * SUBGRID;
-                    for (int i = blockRow; i < blockRow + SUBGRID; i++) {
-                        for (int j = blockCol; j < blockCol + SUBGRID; j++) {
-                            used[board[i][j]] = true;
-                        }
-                    }
-                    
-                    // Add available numbers
-                    for (int num = 1; num <= SIZE; num++) {
-                        if (!used[num]) {
-                            availableNumbers[row][col].add(num);
-                        }
+    /**
+     * @param checkpoint where to save progress periodically, or null
+     */
+    private boolean evolve(int[][] board, Path checkpoint) {
+        evaluatePopulation();
+        long nextCheckpoint = System.nanoTime() + SolverCheckpoint.INTERVAL_NANOS;
+
+        for (; generation < MAX_GENERATIONS; generation++) {
+            if (checkpoint != null && System.nanoTime() - nextCheckpoint >= 0) {
+                saveCheckpoint(checkpoint, board);
+                nextCheckpoint = System.nanoTime() + SolverCheckpoint.INTERVAL_NANOS;
+            }
+            SolverMetrics.increment(SolverMetrics.Count.GENERATIONS);
+            // Adaptive mutation rate based on population diversity
+            double currentDiversity = calculateDiversity();
+            double adaptiveMutationRate = MUTATION_RATE * (1 + (1 - currentDiversity));
+
+            // Get mating pool using improved selection
+            selectMatingPool(generation);
+            
+            // Breed the next generation into the spare buffer, then swap
+            breedOffspring(adaptiveMutationRate);
+            int[][][] previous = population;
+            population = offspring;
+            offspring = previous;
+            evaluatePopulation();
+            
+            // Find best solution
+            int bestIndex = getBestIndex(fitness, POPULATION_SIZE);
+            int[][] bestSolution = population[bestIndex];
+            int currentFitness = fitness[bestIndex];
+            
+            // Store unique elite solutions
+            if (currentFitness > -10 && seenSolutions.add(fingerprint(bestSolution))) {
+                addElite(bestSolution, currentFitness);
+            }
+
+            // Print progress every 10 generations
+            if (TRACE && generation % 10 == 0) {
+                System.out.println("Generation " + generation + 
+                                 ", Best Fitness: " + currentFitness + 
+                                 ", Diversity: " + String.format("%.2f", currentDiversity) +
+                                 ", Mutation Rate: " + String.format("%.2f", adaptiveMutationRate) +
+                                 ", Elite Pool: " + eliteCount);
+            }
+
+            // Check for improvement
+            if (currentFitness > bestFitness) {
+                bestFitness = currentFitness;
+                stagnationCounter = 0;
+            } else {
+                stagnationCounter++;
+            }
+
+            // Solution found
+            if (currentFitness == 0) {
+                if (TRACE) System.out.println("Solution found at generation " + generation);
+                for (int i = 0; i < SIZE; i++) {
+                    System.arraycopy(bestSolution[i], 0, board[i], 0, SIZE);
+                }
+                return true;
+            }
+
+            // If stuck, try to escape local optima
+            if (stagnationCounter >= STAGNATION_LIMIT) {
+                if (TRACE) System.out.println("Attempting to escape local optimum...");
+                SolverMetrics.increment(SolverMetrics.Count.RESTARTS);
+                
+                // Mix elite solutions with completely new solutions
+                for (int i = 0; i < POPULATION_SIZE; i++) {
+                    if (i < eliteCount) {
+                        copyBoard(elites[i], population[i]);
+                    } else {
+                        generateCandidate(population[i]);
                     }
-                } else {
-                    availableNumbers[row][col].add(board[row][col]);
                 }
+                
+                evaluatePopulation();
+                
+                // Clear seen solutions but keep elite pool
+                seenSolutions.clear();
+                stagnationCounter = 0;
             }
         }
         
-        return availableNumbers;
+        return false;
     }
 
-    private static boolean isValidInitialBoard(List<Integer>[][] availableNumbers) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (availableNumbers[row][col].isEmpty()) {
-                    return false;
-                }
+    /**
+     * Snapshots the run, including the random generator, at the start of a generation.
+     */
+    private void saveCheckpoint(Path checkpoint, int[][] puzzle) {
+        long[] seen = seenSolutions.toArray();
+        int boardBytes = PackedBoard.RECORD_BYTES;
+        ByteBuffer data = SolverCheckpoint.allocate(SolverCheckpoint.GENETIC, puzzle, SolverCheckpoint.RANDOM_BYTES
+                + 20 + POPULATION_SIZE * boardBytes + eliteCount * (boardBytes + 4) + seen.length * 8);
+        SolverCheckpoint.putRandom(data, rand);
+        data.putInt(generation).putInt(bestFitness).putInt(stagnationCounter);
+        for (int[][] candidate : population) {
+            packed.setFrom(candidate);
+            packed.writeTo(data);
+        }
+        data.putInt(eliteCount);
+        for (int i = 0; i < eliteCount; i++) {
+            packed.setFrom(elites[i]);
+            packed.writeTo(data);
+            data.putInt(eliteFitness[i]);
+        }
+        data.putInt(seen.length);
+        for (long fingerprint : seen) {
+            data.putLong(fingerprint);
+        }
+        SolverCheckpoint.write(checkpoint, data);
+    }
+
+    /**
+     * @return true if the run was restored from a checkpoint of this puzzle
+     */
+    private boolean resume(Path checkpoint, int[][] puzzle) {
+        ByteBuffer data = SolverCheckpoint.read(checkpoint, SolverCheckpoint.GENETIC, puzzle);
+        if (data == null) return false;
+        try {
+            rand.setState(SolverCheckpoint.getRandom(data));
+            generation = data.getInt();
+            bestFitness = data.getInt();
+            stagnationCounter = data.getInt();
+            for (int[][] candidate : population) {
+                packed.readFrom(data);
+                packed.copyTo(candidate);
+            }
+            eliteCount = data.getInt();
+            for (int i = 0; i < eliteCount; i++) {
+                packed.readFrom(data);
+                packed.copyTo(elites[i]);
+                eliteFitness[i] = data.getInt();
+            }
+            seenSolutions.clear();
+            for (int i = data.getInt(); i > 0; i--) {
+                seenSolutions.add(data.getLong());
+            }
+            if (TRACE) System.out.println("Resuming from generation " + generation);
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable checkpoint " + checkpoint + ": " + e);
+            return false;
+        }
+    }
+
+    public static boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    private static boolean isFilled(int[][] board) {
+        for (int[] row : board) {
+            for (int cell : row) {
+                if (cell == 0) return false;
             }
         }
         return true;
     }
 
-    private static double calculateDiversity(List<int[][]> population) {
-        Set<String> uniqueBoards = new HashSet<>();
+    /**
+     * @return the fraction of distinct boards in the population
+     */
+    private double calculateDiversity() {
+        uniqueBoards.clear();
         for (int[][] board : population) {
-            uniqueBoards.add(boardToString(board));
+            uniqueBoards.add(fingerprint(board));
         }
-        return (double) uniqueBoards.size() / population.size();
+        return (double) uniqueBoards.size() / POPULATION_SIZE;
     }
 
-    private static String boardToString(int[][] board) {
-        StringBuilder sb = new StringBuilder();
+    private static long fingerprint(int[][] board) {
+        long h = 0;
         for (int[] row : board) {
             for (int cell : row) {
-                sb.append(cell);
+                h = (h ^ cell) * 0x9E3779B97F4A7C15L;
+                h ^= h >>> 29;
             }
         }
-        return sb.toString();
+        return h;
     }
 
-    private static int[][] generateCandidate(int[][] initialBoard, List<Integer>[][] availableNumbers) {
-        int[][] candidate = new int[SIZE][SIZE];
-        
-        // Copy fixed numbers
+    /**
+     * Keeps the board if the pool has room or it beats the worst elite.
+     */
+    private void addElite(int[][] board, int boardFitness) {
+        int slot = eliteCount;
+        if (eliteCount == ELITE_POOL_SIZE) {
+            slot = 0;
+            for (int i = 1; i < ELITE_POOL_SIZE; i++) {
+                if (eliteFitness[i] < eliteFitness[slot]) slot = i;
+            }
+            if (eliteFitness[slot] >= boardFitness) return;
+        } else {
+            eliteCount++;
+        }
+        copyBoard(board, elites[slot]);
+        eliteFitness[slot] = boardFitness;
+    }
+
+    private void findFreePositions() {
         for (int row = 0; row < SIZE; row++) {
+            int count = 0;
             for (int col = 0; col < SIZE; col++) {
-                if (initialBoard[row][col] != 0) {
-                    candidate[row][col] = initialBoard[row][col];
+                if (initialBoard[row][col] == 0) {
+                    freePositions[row][count++] = col;
                 }
             }
+            freeCounts[row] = count;
         }
+    }
+
+    /**
+     * Fills each row's free cells with a random permutation of the row's missing
+     * digits. Every row of a candidate stays a permutation of 1-9 from here on.
+     */
+    private void generateCandidate(int[][] candidate) {
+        copyBoard(initialBoard, candidate);
         
-        // Fill empty cells using available numbers
         for (int row = 0; row < SIZE; row++) {
-            List<Integer> remainingNumbers = new ArrayList<>();
-            for (int i = 1; i <= SIZE; i++) {
-                remainingNumbers.add(i);
-            }
-            
-            // Remove fixed numbers from remaining
+            int used = 0;
             for (int col = 0; col < SIZE; col++) {
-                if (candidate[row][col] != 0) {
-                    remainingNumbers.remove(Integer.valueOf(candidate[row][col]));
-                }
+                used |= 1 << initialBoard[row][col];
             }
-            
-            // Fill empty cells
-            Collections.shuffle(remainingNumbers);
-            int remainingIndex = 0;
-            for (int col = 0; col < SIZE; col++) {
-                if (candidate[row][col] == 0) {
-                    // Prefer numbers from available list if possible
-                    List<Integer> available = availableNumbers[row][col];
-                    if (!available.isEmpty() && rand.nextDouble() < 0.8) {
-                        candidate[row][col] = available.get(rand.nextInt(available.size()));
-                        remainingNumbers.remove(Integer.valueOf(candidate[row][col]));
-                    } else {
-                        candidate[row][col] = remainingNumbers.get(remainingIndex++);
+            int remaining = 0;
+            for (int num = 1; num <= SIZE; num++) {
+                if ((used & (1 << num)) == 0) digits[remaining++] = num;
+            }
+            shuffle(digits, remaining);
+
+            int free = freeCounts[row];
+            System.arraycopy(freePositions[row], 0, columns, 0, free);
+            shuffle(columns, free);
+            for (int c = 0; c < free; c++) {
+                int col = columns[c];
+                // Prefer a digit that is still a candidate for this cell
+                int pick = 0;
+                for (int i = 0; i < remaining; i++) {
+                    if ((candidates[row * SIZE + col] & (1 << digits[i])) != 0) {
+                        pick = i;
+                        break;
                     }
                 }
+                candidate[row][col] = digits[pick];
+                System.arraycopy(digits, pick + 1, digits, pick, --remaining - pick);
             }
         }
-        
-        return candidate;
     }
 
-    private static List<int[][]> initializePopulation(int[][] initialBoard, List<Integer>[][] availableNumbers) {
-        List<int[][]> population = new ArrayList<>();
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            population.add(generateCandidate(initialBoard, availableNumbers));
+    private void shuffle(int[] values, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
         }
-        return population;
     }
     
-    private static List<int[][]> getMatingPool(List<int[][]> population, int generation) {
-        List<int[][]> matingPool = new ArrayList<>();
-        
-        // Sort population by fitness
-        population.sort((a, b) -> calculateFitness(b) - calculateFitness(a));
-        
+    /**
+     * Scores the whole population in one batch: fitness[i] becomes minus the
+     * column and box conflicts of population[i].
+     */
+    private void evaluatePopulation() {
+        batch.clear();
+        for (int[][] candidate : population) {
+            batch.add(candidate);
+        }
+        EVALUATOR.columnBoxConflicts(batch, fitness);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            fitness[i] = -fitness[i];
+        }
+        SolverMetrics.add(SolverMetrics.Count.FITNESS_EVALUATIONS, POPULATION_SIZE);
+    }
+
+    /**
+     * Tournament-selects a mating pool the size of the population, recording each
+     * winner's index and fitness.
+     */
+    private void selectMatingPool(int generation) {
         // Adaptive tournament size based on generation
         int tournamentSize = 5 + (generation / 200); // Increases tournament pressure over time
         tournamentSize = Math.min(tournamentSize, 10); // Cap at 10
         
         // Tournament selection
-        while (matingPool.size() < population.size()) {
-            int[][] selected = tournamentSelect(population, tournamentSize);
-            matingPool.add(cloneBoard(selected));
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            int selected = tournamentSelect(fitness, POPULATION_SIZE, tournamentSize);
+            matingPool[i] = selected;
+            matingFitness[i] = fitness[selected];
         }
-        
-        return matingPool;
     }
 
-    private static List<int[][]> evolvePopulation(List<int[][]> matingPool, int[][] initialBoard, 
-                                            List<Integer>[][] availableNumbers, double mutationRate) {
-    List<int[][]> newPopulation = new ArrayList<>();
-    
-    // Keep best solutions (elitism)
-    int eliteSize = POPULATION_SIZE / 20; // Keep top 5%
-    for (int i = 0; i < eliteSize; i++) {
-        newPopulation.add(cloneBoard(matingPool.get(i)));
-    }
-    
-    // Create rest of new population through crossover and mutation
-    while (newPopulation.size() < POPULATION_SIZE) {
-        int[][] parent1 = tournamentSelect(matingPool, 3);
-        int[][] parent2 = tournamentSelect(matingPool, 3);
+    /**
+     * Writes the next generation into {@code offspring} from the mating pool.
+     */
+    private void breedOffspring(double mutationRate) {
+        // Keep best solutions (elitism)
+        int eliteSize = POPULATION_SIZE / 20; // Keep top 5%
+        int size = 0;
+        while (size < eliteSize) {
+            copyBoard(population[matingPool[size]], offspring[size]);
+            size++;
+        }
         
-        if (rand.nextDouble() < CROSSOVER_RATE) {
-            int[][][] children = crossover(parent1, parent2);
-            mutate(children[0], initialBoard, mutationRate, availableNumbers);
-            mutate(children[1], initialBoard, mutationRate, availableNumbers);
-            newPopulation.add(children[0]);
-            if (newPopulation.size() < POPULATION_SIZE) {
-                newPopulation.add(children[1]);
-            }
-        } else {
-            newPopulation.add(cloneBoard(parent1));
-            if (newPopulation.size() < POPULATION_SIZE) {
-                newPopulation.add(cloneBoard(parent2));
+        // Create rest of new population through crossover and mutation
+        while (size < POPULATION_SIZE) {
+            int[][] parent1 = population[matingPool[tournamentSelect(matingFitness, POPULATION_SIZE, 3)]];
+            int[][] parent2 = population[matingPool[tournamentSelect(matingFitness, POPULATION_SIZE, 3)]];
+            int[][] child1 = offspring[size++];
+            int[][] child2 = size < POPULATION_SIZE ? offspring[size++] : spareChild;
+            
+            if (rand.nextDouble() < CROSSOVER_RATE) {
+                crossover(parent1, parent2, child1, child2);
+                mutate(child1, mutationRate);
+                mutate(child2, mutationRate);
+            } else {
+                copyBoard(parent1, child1);
+                copyBoard(parent2, child2);
             }
         }
     }
-    
-    return newPopulation;
-}
-
-private static int[][] mutate(int[][] candidate, int[][] initialBoard, 
-                            double mutationRate, List<Integer>[][] availableNumbers) {
-    for (int row = 0; row < SIZE; row++) {
-        if (rand.nextDouble() < mutationRate) {
-            // Only mutate rows that don't contain fixed numbers from initial board
-            boolean hasFixed = false;
-            for (int col = 0; col < SIZE; col++) {
-                if (initialBoard[row][col] != 0) {
-                    hasFixed = true;
-                    break;
-                }
-            }
-            
-            if (!hasFixed) {
-                if (rand.nextDouble() < 0.5) {
-                    // Swap two random positions in the row
-                    int pos1 = rand.nextInt(SIZE);
-                    int pos2 = rand.nextInt(SIZE);
-                    int temp = candidate[row][pos1];
-                    candidate[row][pos1] = candidate[row][pos2];
-                    candidate[row][pos2] = temp;
-                } else {
-                    // Try to replace a number with an available one
-                    int col = rand.nextInt(SIZE);
-                    if (!availableNumbers[row][col].isEmpty()) {
-                        candidate[row][col] = availableNumbers[row][col]
-                            .get(rand.nextInt(availableNumbers[row][col].size()));
-                    }
+
+    /**
+     * Swap or insertion mutation on the free cells of a row, so the row stays a permutation.
+     */
+    private void mutate(int[][] candidate, double mutationRate) {
+        for (int row = 0; row < SIZE; row++) {
+            int[] free = freePositions[row];
+            int count = freeCounts[row];
+            if (count < 2 || rand.nextDouble() >= mutationRate) continue;
+
+            int from = rand.nextInt(count);
+            int to = rand.nextInt(count - 1);
+            if (to >= from) to++;
+            int[] cells = candidate[row];
+            if (rand.nextDouble() < 0.5) {
+                // Swap two free cells
+                int temp = cells[free[from]];
+                cells[free[from]] = cells[free[to]];
+                cells[free[to]] = temp;
+            } else {
+                // Move one value to another free position, shifting the ones in between
+                int value = cells[free[from]];
+                int step = from < to ? 1 : -1;
+                for (int k = from; k != to; k += step) {
+                    cells[free[k]] = cells[free[k + step]];
                 }
+                cells[free[to]] = value;
             }
         }
     }
-    return candidate;
-}
 
 
     private static void printBoard(int[][] board) {
@@ -351,208 +496,66 @@ private static int[][] mutate(int[][] candidate, int[][] initialBoard,
         System.out.println();
     }
 
-    private static List<int[][]> initializePopulation(int[][] initialBoard) {
-        List<int[][]> population = new ArrayList<>();
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            population.add(generateCandidate(initialBoard));
+    /**
+     * @return the index of the fittest of {@code tournamentSize} random members
+     */
+    private int tournamentSelect(int[] fitness, int size, int tournamentSize) {
+        int best = rand.nextInt(size);
+        for (int i = 1; i < tournamentSize; i++) {
+            int contender = rand.nextInt(size);
+            if (fitness[contender] > fitness[best]) best = contender;
         }
-        return population;
+        return best;
     }
 
-    private static int[][] generateCandidate(int[][] initialBoard) {
-        int[][] candidate = new int[SIZE][SIZE];
-        for (int row = 0; row < SIZE; row++) {
-            List<Integer> available = new ArrayList<>();
-            for (int i = 1; i <= SIZE; i++) {
-                available.add(i);
-            }
-            Collections.shuffle(available);
-            
-            // Copy fixed numbers from initial board
-            for (int col = 0; col < SIZE; col++) {
-                if (initialBoard[row][col] != 0) {
-                    candidate[row][col] = initialBoard[row][col];
-                    available.remove(Integer.valueOf(initialBoard[row][col]));
-                }
-            }
-            
-            // Fill remaining cells
-            int availableIndex = 0;
-            for (int col = 0; col < SIZE; col++) {
-                if (candidate[row][col] == 0) {
-                    candidate[row][col] = available.get(availableIndex++);
-                }
-            }
+    private static int getBestIndex(int[] fitness, int size) {
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (fitness[i] > fitness[best]) best = i;
         }
-        return candidate;
+        return best;
     }
 
-    private static List<int[][]> getMatingPool(List<int[][]> population) {
-        List<int[][]> matingPool = new ArrayList<>();
-        
-        // Sort population by fitness
-        population.sort((a, b) -> calculateFitness(b) - calculateFitness(a));
-        
-        // Tournament selection
-        while (matingPool.size() < population.size()) {
-            int[][] selected = tournamentSelect(population, 5);
-            matingPool.add(cloneBoard(selected));
-        }
-        
-        return matingPool;
-    }
-
-    private static int[][] tournamentSelect(List<int[][]> population, int tournamentSize) {
-        List<int[][]> tournament = new ArrayList<>();
-        for (int i = 0; i < tournamentSize; i++) {
-            tournament.add(population.get(rand.nextInt(population.size())));
-        }
-        return Collections.max(tournament, Comparator.comparingInt(SudokuGA::calculateFitness));
-    }
-
-    private static List<int[][]> evolvePopulation(List<int[][]> matingPool, int[][] initialBoard) {
-        List<int[][]> newPopulation = new ArrayList<>();
-        
-        // Keep best solution (elitism)
-        newPopulation.add(cloneBoard(getBestSolution(matingPool)));
-        
-        for (int i = 1; i < POPULATION_SIZE; i += 2) {
-            int[][] parent1 = matingPool.get(i - 1);
-            int[][] parent2 = matingPool.get(i);
-            
-            if (rand.nextDouble() < CROSSOVER_RATE) {
-                int[][][] children = crossover(parent1, parent2);
-                mutate(children[0], initialBoard);
-                mutate(children[1], initialBoard);
-                newPopulation.add(children[0]);
-                if (newPopulation.size() < POPULATION_SIZE) {
-                    newPopulation.add(children[1]);
-                }
-            } else {
-                newPopulation.add(cloneBoard(parent1));
-                if (newPopulation.size() < POPULATION_SIZE) {
-                    newPopulation.add(cloneBoard(parent2));
-                }
-            }
-        }
-        
-        return newPopulation;
-    }
-
-    private static int[][] getBestSolution(List<int[][]> population) {
-        return Collections.max(population, Comparator.comparingInt(SudokuGA::calculateFitness));
-    }
-
-    private static int[][] cloneBoard(int[][] board) {
-        int[][] clone = new int[SIZE][SIZE];
+    private static void copyBoard(int[][] from, int[][] to) {
         for (int i = 0; i < SIZE; i++) {
-            System.arraycopy(board[i], 0, clone[i], 0, SIZE);
+            System.arraycopy(from[i], 0, to[i], 0, SIZE);
         }
-        return clone;
     }
 
-    private static int[][] mutate(int[][] candidate, int[][] initialBoard) {
-        for (int row = 0; row < SIZE; row++) {
-            if (rand.nextDouble() < MUTATION_RATE) {
-                // Only mutate rows that don't contain fixed numbers from initial board
-                boolean hasFixed = false;
-                for (int col = 0; col < SIZE; col++) {
-                    if (initialBoard[row][col] != 0) {
-                        hasFixed = true;
-                        break;
-                    }
-                }
-                if (!hasFixed) {
-                    // Swap two random positions in the row
-                    int pos1 = rand.nextInt(SIZE);
-                    int pos2 = rand.nextInt(SIZE);
-                    int temp = candidate[row][pos1];
-                    candidate[row][pos1] = candidate[row][pos2];
-                    candidate[row][pos2] = temp;
-                }
-            }
-        }
-        return candidate;
-    }
-
-    private static int[][][] crossover(int[][] parent1, int[][] parent2) {
-        int[][] child1 = new int[SIZE][SIZE];
-        int[][] child2 = new int[SIZE][SIZE];
-        
-        for (int row = 0; row < SIZE; row++) {
-            if (rand.nextBoolean()) {
-                System.arraycopy(parent1[row], 0, child1[row], 0, SIZE);
-                System.arraycopy(parent2[row], 0, child2[row], 0, SIZE);
-            } else {
-                System.arraycopy(parent2[row], 0, child1[row], 0, SIZE);
-                System.arraycopy(parent1[row], 0, child2[row], 0, SIZE);
-            }
-        }
-        
-        return new int[][][] { child1, child2 };
+    private static int[][][] newBoards(int count) {
+        return new int[count][SIZE][SIZE];
     }
 
-    private static int calculateFitness(int[][] candidate) {
-        int conflicts = 0;
+    /**
+     * Cycle crossover applied row by row: the free cells of a row split into cycles
+     * on which the parents hold the same digits, and the children take alternate
+     * cycles from each parent, so every child row is still a permutation.
+     */
+    private void crossover(int[][] parent1, int[][] parent2, int[][] child1, int[][] child2) {
+        copyBoard(parent1, child1);
+        copyBoard(parent2, child2);
         
-        // Check rows (not needed as we maintain row validity in generation)
         for (int row = 0; row < SIZE; row++) {
-            conflicts += countConflicts(getRow(candidate, row));
-        }
-        
-        // Check columns
-        for (int col = 0; col < SIZE; col++) {
-            conflicts += countConflicts(getColumn(candidate, col));
-        }
-        
-        // Check 3x3 subgrids
-        for (int blockRow = 0; blockRow < SIZE; blockRow += SUBGRID) {
-            for (int blockCol = 0; blockCol < SIZE; blockCol += SUBGRID) {
-                conflicts += countConflicts(getBlock(candidate, blockRow, blockCol));
-            }
-        }
-        
-        return -conflicts; // Return negative conflicts as fitness (0 is perfect)
-    }
-
-    private static int countConflicts(List<Integer> numbers) {
-        Map<Integer, Integer> counts = new HashMap<>();
-        for (int num : numbers) {
-            counts.merge(num, 1, Integer::sum);
-        }
-        
-        int conflicts = 0;
-        for (int count : counts.values()) {
-            if (count > 1) {
-                conflicts += (count - 1);
+            int[] free = freePositions[row];
+            int count = freeCounts[row];
+            for (int k = 0; k < count; k++) {
+                positionInFirst[parent1[row][free[k]]] = k;
+                visited[k] = false;
             }
-        }
-        return conflicts;
-    }
-
-    private static List<Integer> getRow(int[][] board, int row) {
-        List<Integer> numbers = new ArrayList<>();
-        for (int col = 0; col < SIZE; col++) {
-            numbers.add(board[row][col]);
-        }
-        return numbers;
-    }
-
-    private static List<Integer> getColumn(int[][] board, int col) {
-        List<Integer> numbers = new ArrayList<>();
-        for (int row = 0; row < SIZE; row++) {
-            numbers.add(board[row][col]);
-        }
-        return numbers;
-    }
-
-    private static List<Integer> getBlock(int[][] board, int blockRow, int blockCol) {
-        List<Integer> numbers = new ArrayList<>();
-        for (int row = blockRow; row < blockRow + SUBGRID; row++) {
-            for (int col = blockCol; col < blockCol + SUBGRID; col++) {
-                numbers.add(board[row][col]);
+            boolean fromFirst = rand.nextBoolean();
+            for (int start = 0; start < count; start++) {
+                if (visited[start]) continue;
+                int k = start;
+                do {
+                    visited[k] = true;
+                    if (!fromFirst) {
+                        child1[row][free[k]] = parent2[row][free[k]];
+                        child2[row][free[k]] = parent1[row][free[k]];
+                    }
+                    k = positionInFirst[parent2[row][free[k]]];
+                } while (k != start);
+                fromFirst = !fromFirst;
             }
         }
-        return numbers;
     }
 }
\ No newline at end of file
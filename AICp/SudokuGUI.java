@@ -4,59 +4,46 @@ package AICp;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class SudokuGUI extends JFrame {
+    // Engines that publish search events for step visualisation
+    private static final SudokuEngine[] VISUAL_ENGINES = {
+        SudokuEngine.BACKTRACKING, SudokuEngine.CONSTRAINT_PROGRAMMING
+    };
+
     private final SudokuLogicBackTracking solver;
-    private final JTextField[][] cells;
+    private final PuzzleBank bank;
+    private final BoardComponent boardView;
+    private final JPanel buttonPanel;
     private final int SIZE;
-    private final int SUBGRID;
     private int[][] board;
 
     public SudokuGUI() {
         solver = new SudokuLogicBackTracking();
         SIZE = solver.getSize();
-        SUBGRID = solver.getSubgrid();
-        cells = new JTextField[SIZE][SIZE];
+        boardView = new BoardComponent();
+        buttonPanel = new JPanel();
         board = new int[SIZE][SIZE];
+        bank = openBank();
 
         setTitle("Sudoku Solver & Generator");
         setSize(700, 700);
         setLayout(new BorderLayout());
-        createBoard();
+        add(boardView, BorderLayout.CENTER);
         addButtons();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setVisible(true);
     }
 
-    private void createBoard() {
-        JPanel gridPanel = new JPanel();
-        gridPanel.setLayout(new GridLayout(SIZE, SIZE));
-        
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j] = new JTextField();
-                cells[i][j].setHorizontalAlignment(JTextField.CENTER);
-                cells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
-                
-                if ((i / SUBGRID + j / SUBGRID) % 2 == 0) {
-                    cells[i][j].setBackground(new Color(173, 216, 230));
-                } else {
-                    cells[i][j].setBackground(Color.WHITE);
-                }
-                
-                gridPanel.add(cells[i][j]);
-            }
-        }
-        add(gridPanel, BorderLayout.CENTER);
-    }
-
     private void addButtons() {
-        JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.setBackground(Color.LIGHT_GRAY);
 
         addButton(buttonPanel, "Generate", e -> generatePuzzle());
         addButton(buttonPanel, "Solve", e -> solveSudoku());
+        addButton(buttonPanel, "Visualise", e -> visualiseSolve());
         addButton(buttonPanel, "Validate", e -> validateSolution());
         addButton(buttonPanel, "Hint", e -> provideHint());
 
@@ -72,7 +59,11 @@ public class SudokuGUI extends JFrame {
     }
 
     private void solveSudoku() {
-        String[] options = {"Backtracking", "Constraint Programming","MRV","Simulated Anneling","Genetic Algo"};
+        SudokuEngine[] engines = SudokuEngine.values();
+        String[] options = new String[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            options[i] = engines[i].getDisplayName();
+        }
         int choice = JOptionPane.showOptionDialog(
             this,
             "Select Solving Method",
@@ -81,38 +72,66 @@ public class SudokuGUI extends JFrame {
             JOptionPane.QUESTION_MESSAGE,
             null,
             options,
-            options[0]
+            options[SudokuEngine.AUTO.ordinal()]
         );
 
         readBoard();
         boolean solved = false;
 
-        if (choice == 0) {
-            // Backtracking method
-            solved = solver.solve(board);
-        } else if (choice == 1) {
-            // Constraint Programming method
-            solved = SudokuSolverCP.solveSudokuConstraint(board);
-        } else if(choice==2){
-            //Minimum Remaining Huristic 
-            solved = SudokuSolverMRV.solve(board);
-        } else if(choice == 3){
-            solved = SimulatedAnnealingSudoku.solve(board);
-        } else if(choice==4){
-            solved = SudokuGA.solve(board);
+        if (choice >= 0) {
+            solved = engines[choice].solve(board);
         }
 
         if (solved) {
-            updateBoard();
+            boardView.fill(board);
             JOptionPane.showMessageDialog(this, "Solved!");
         } else {
             JOptionPane.showMessageDialog(this, "No solution exists.");
         }
     }
 
+    private static PuzzleBank openBank() {
+        try {
+            return PuzzleBank.open(Paths.get(System.getProperty("sudoku.bank", "puzzles.sdkb")));
+        } catch (IOException e) {
+            System.err.println("Puzzle bank unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
     private void generatePuzzle() {
-        board = solver.generatePuzzle(getDifficulty());
-        updateBoard();
+        int difficulty = getDifficulty();
+        if (difficulty < 0) return;
+        // Serve from the bank, generating directly until it has been filled
+        int[][] puzzle = bank == null ? null : bank.pick(difficulty);
+        board = puzzle != null ? puzzle : solver.generatePuzzle(difficulty);
+        boardView.loadPuzzle(board);
+    }
+
+    private void visualiseSolve() {
+        String[] options = new String[VISUAL_ENGINES.length];
+        for (int i = 0; i < VISUAL_ENGINES.length; i++) {
+            options[i] = VISUAL_ENGINES[i].getDisplayName();
+        }
+        int choice = JOptionPane.showOptionDialog(
+            this, "Select Solving Method", "Visualise Search",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+            null, options, options[0]
+        );
+        if (choice < 0) return;
+
+        readBoard();
+        setButtonsEnabled(false);
+        SearchVisualiser.start(boardView, VISUAL_ENGINES[choice]::solve, board, solved -> {
+            setButtonsEnabled(true);
+            JOptionPane.showMessageDialog(this, solved ? "Solved!" : "No solution exists.");
+        });
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        for (Component button : buttonPanel.getComponents()) {
+            button.setEnabled(enabled);
+        }
     }
 
     private int getDifficulty() {
@@ -125,42 +144,13 @@ public class SudokuGUI extends JFrame {
     }
 
     private void readBoard() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                String text = cells[i][j].getText();
-                board[i][j] = text.isEmpty() ? 0 : Integer.parseInt(text);
-            }
-        }
-    }
-
-    private void updateBoard() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                cells[i][j].setText(board[i][j] == 0 ? "" : String.valueOf(board[i][j]));
-                cells[i][j].setBackground((i / SUBGRID + j / SUBGRID) % 2 == 0 ? 
-                    new Color(173, 216, 230) : Color.WHITE);
-            }
-        }
+        boardView.copyTo(board);
     }
 
     private void validateSolution() {
-        boolean valid = true;
-        readBoard();
-
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (board[i][j] != 0 && !solver.isValid(board, i, j, board[i][j])) {
-                    cells[i][j].setBackground(Color.RED);
-                    valid = false;
-                } else {
-                    cells[i][j].setBackground((i / SUBGRID + j / SUBGRID) % 2 == 0 ? 
-                        new Color(173, 216, 230) : Color.WHITE);
-                }
-            }
-        }
-
-        JOptionPane.showMessageDialog(this, 
-            valid ? "Valid Solution!" : "Invalid entries highlighted in red.");
+        // Conflicts are highlighted as they are typed
+        JOptionPane.showMessageDialog(this,
+            boardView.hasConflicts() ? "Invalid entries highlighted in red." : "Valid Solution!");
     }
 
     private void provideHint() {
@@ -172,8 +162,7 @@ public class SudokuGUI extends JFrame {
                         if (solver.isValid(board, row, col, num)) {
                             board[row][col] = num;
                             if (solver.solve(board)) {
-                                cells[row][col].setText(String.valueOf(num));
-                                cells[row][col].setBackground(Color.YELLOW);
+                                boardView.showHint(row, col, num);
                                 return;
                             }
                             board[row][col] = 0;
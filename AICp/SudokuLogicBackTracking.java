@@ -2,11 +2,29 @@
 package AICp;
 
 import java.util.Random;
+import java.util.stream.Stream;
 
 public class SudokuLogicBackTracking {
     private static final int SIZE = 9;
     private static final int SUBGRID = 3;
 
+    // One instance per thread for SudokuEngine, so solving allocates nothing
+    private static final ThreadLocal<SudokuLogicBackTracking> POOL =
+            ThreadLocal.withInitial(SudokuLogicBackTracking::new);
+
+    private final Random rand;
+
+    public SudokuLogicBackTracking() {
+        this.rand = new Xoshiro256();
+    }
+
+    /**
+     * @param seed makes generated puzzles repeatable
+     */
+    public SudokuLogicBackTracking(long seed) {
+        this.rand = new Xoshiro256(seed);
+    }
+
     public boolean isValid(int[][] board, int row, int col, int num) {
         for (int i = 0; i < SIZE; i++) {
             if (board[row][i] == num && i != col || // Check row
@@ -27,8 +45,12 @@ public class SudokuLogicBackTracking {
                     for (int num = 1; num <= SIZE; num++) {
                         if (isValid(board, row, col, num)) {
                             board[row][col] = num;
+                            SolverMetrics.increment(SolverMetrics.Count.NODES);
+                            SearchEvents.place(row * SIZE + col, num);
                             if (solve(board)) return true;
                             board[row][col] = 0;
+                            SolverMetrics.increment(SolverMetrics.Count.BACKTRACKS);
+                            SearchEvents.remove(row * SIZE + col);
                         }
                     }
                     return false;
@@ -38,16 +60,34 @@ public class SudokuLogicBackTracking {
         return true;
     }
 
+    /**
+     * Solves with this thread's pooled instance.
+     */
+    public static boolean solvePooled(int[][] board) {
+        return POOL.get().solve(board);
+    }
+
+    public boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    /**
+     * @return every solution of the board, found lazily; see {@link SolutionEnumerator}
+     */
+    public Stream<int[][]> solutions(int[][] board) {
+        return SolutionEnumerator.stream(board);
+    }
+
     public int[][] generatePuzzle(int difficulty) {
-        int[][] fullBoard = new int[SIZE][SIZE];
-        fillDiagonal(fullBoard);
-        solve(fullBoard);
+        int[][] fullBoard = generateSolution();
 
         int[][] puzzle = copyBoard(fullBoard);
         int removeCount = difficulty == 0 ? 36 : difficulty == 1 ? 45 : 54;
         // easy = 45 ; medium = 36 ; hard = 27 
 
-        Random rand = new Random();
         while (removeCount > 0) {
             int row = rand.nextInt(SIZE);
             int col = rand.nextInt(SIZE);
@@ -59,6 +99,16 @@ public class SudokuLogicBackTracking {
         return puzzle;
     }
 
+    /**
+     * @return a random completely filled valid board
+     */
+    public int[][] generateSolution() {
+        int[][] fullBoard = new int[SIZE][SIZE];
+        fillDiagonal(fullBoard);
+        solve(fullBoard);
+        return fullBoard;
+    }
+
     private void fillDiagonal(int[][] board) {
         for (int i = 0; i < SIZE; i += SUBGRID) {
             fillSubGrid(board, i, i);
@@ -66,7 +116,6 @@ public class SudokuLogicBackTracking {
     }
 
     private void fillSubGrid(int[][] board, int row, int col) {
-        Random rand = new Random();
         int[] numbers = new int[SIZE];
         for (int i = 0; i < SIZE; i++) {
             numbers[i] = i + 1;
@@ -80,7 +129,6 @@ public class SudokuLogicBackTracking {
     }
 
     private void shuffleArray(int[] array) {
-        Random rand = new Random();
         for (int i = array.length - 1; i > 0; i--) {
             int j = rand.nextInt(i + 1);
             int temp = array[i];
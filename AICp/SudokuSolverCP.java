@@ -1,35 +1,227 @@
 package AICp;
-import java.awt.Point;
 import java.util.*;
 
 public class SudokuSolverCP {
     private static final int SIZE = 9;
     private static final int SUBGRID_SIZE = 3;
-    private static Set<Integer>[][] domains;
-    private static int[][] grid;
-    private static int steps = 0;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int UNITS = 3 * SIZE;
+    private static final int ALL_UNITS = (1 << UNITS) - 1;
+    // UNIT_CELLS[u] lists the cells (row * 9 + col) of row u, column u - 9 or box u - 18
+    private static final int[][] UNIT_CELLS = new int[UNITS][SIZE];
+    // CELL_UNITS[cell] is the bitmask of the three units containing the cell
+    private static final int[] CELL_UNITS = new int[CELLS];
+    private static final int PEER_COUNT = 20;
+    // PEERS[cell] lists the 20 cells sharing a row, column or box with the cell
+    private static final int[][] PEERS = new int[CELLS][PEER_COUNT];
+    // Arc id cell * 20 + k revises the cell against PEERS[cell][k];
+    // REVERSE_ARC[id] is the id of the arc pointing the other way
+    private static final int ARCS = CELLS * PEER_COUNT;
+    private static final int[] REVERSE_ARC = new int[ARCS];
+
+    // Set -Dsudoku.trace=true to print the grid and domains at every step
+    private static final boolean TRACE = Boolean.getBoolean("sudoku.trace");
+    // One solver per thread, so the static entry points reuse its buffers
+    private static final ThreadLocal<SudokuSolverCP> POOL = ThreadLocal.withInitial(SudokuSolverCP::new);
+
+    // Search results
+    private static final int FAILED = 0;
+    private static final int SOLVED = 1;
+    private static final int ABORTED = 2;
+    private static final int MAX_NOGOOD_SIZE = 8;
+    private static final int MAX_NOGOODS = 10000;
+
+    // Domains are bitmasks with bit v set when value v (1-9) is still possible
+    private final int[][] domains = new int[SIZE][SIZE];
+    private final int[][] grid = new int[SIZE][SIZE];
+    private int steps = 0;
+    private int dirtyUnits;
+
+    private SearchOptions options;
+    private final Xoshiro256 random = new Xoshiro256();
+    // dom/wdeg weights, bumped whenever a unit causes a failure
+    private final int[] unitWeights = new int[UNITS];
+    private final int[][] valueOrderStack = new int[CELLS + 1][SIZE];
+    // Domains saved before each decision, indexed by search depth
+    private final int[][][] domainStack = new int[CELLS + 1][SIZE][SIZE];
+    private final int[] lcvScores = new int[SIZE + 1];
+    private long nodeCount;
+    private long nodeLimit;
+    private final int[][] rootDomains = new int[SIZE][SIZE];
+    private int rootDirtyUnits;
+    // Branching decisions on the current path, encoded as cell * 10 + value
+    private final int[] decisionLiterals = new int[CELLS];
+    private int decisionCount;
+    // Nogood i is nogoodLiterals[nogoodStart[i]] up to nogoodStart[i + 1]. Every stored
+    // literal is an entry in its literal's list, which starts at literalHead[literal]
+    // and follows nextEntry; entryNogood maps an entry back to its nogood
+    private final int[] nogoodStart = new int[MAX_NOGOODS + 1];
+    private int[] nogoodLiterals = new int[1024];
+    private int[] entryNogood = new int[1024];
+    private int[] nextEntry = new int[1024];
+    private final int[] literalHead = new int[CELLS * 10];
+    private int nogoodCount;
+
+    public enum VariableOrdering {
+        /** Smallest domain first (MRV). */
+        MIN_DOMAIN,
+        /** Smallest ratio of domain size to the summed failure weights of the cell's units. */
+        DOM_WDEG
+    }
+
+    public enum ValueOrdering {
+        ASCENDING,
+        /** Values that appear in the fewest unassigned peer domains first. */
+        LEAST_CONSTRAINING
+    }
+
+    /**
+     * Search configuration for {@link #solveSudokuConstraint(int[][], SearchOptions)}.
+     * The defaults use dom/wdeg with LCV, Luby restarts every 500 * luby(i) nodes
+     * and nogood recording.
+     */
+    public static class SearchOptions {
+        private VariableOrdering variableOrdering = VariableOrdering.DOM_WDEG;
+        private ValueOrdering valueOrdering = ValueOrdering.LEAST_CONSTRAINING;
+        private boolean randomTieBreaking = false;
+        private long seed = 0;
+        private boolean restarts = true;
+        private int restartBase = 500;
+        private long nodeBudget = Long.MAX_VALUE;
+        private boolean nogoods = true;
+
+        public SearchOptions variableOrdering(VariableOrdering ordering) {
+            this.variableOrdering = ordering;
+            return this;
+        }
+
+        public SearchOptions valueOrdering(ValueOrdering ordering) {
+            this.valueOrdering = ordering;
+            return this;
+        }
+
+        /** Breaks variable and value ordering ties at random using the given seed. */
+        public SearchOptions randomTieBreaking(long seed) {
+            this.randomTieBreaking = true;
+            this.seed = seed;
+            return this;
+        }
+
+        /** Restarts after {@code base * luby(i)} nodes in run i; 0 disables restarts. */
+        public SearchOptions restarts(int base) {
+            this.restarts = base > 0;
+            this.restartBase = base;
+            return this;
+        }
+
+        /** Gives up (reporting no solution) after this many nodes in total. */
+        public SearchOptions nodeBudget(long budget) {
+            this.nodeBudget = budget;
+            return this;
+        }
+
+        public SearchOptions nogoods(boolean enabled) {
+            this.nogoods = enabled;
+            return this;
+        }
+    }
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int box = (i / SUBGRID_SIZE) * SUBGRID_SIZE + j / SUBGRID_SIZE;
+                int boxCell = (i % SUBGRID_SIZE) * SUBGRID_SIZE + j % SUBGRID_SIZE;
+                int cell = i * SIZE + j;
+                UNIT_CELLS[i][j] = cell;
+                UNIT_CELLS[SIZE + j][i] = cell;
+                UNIT_CELLS[2 * SIZE + box][boxCell] = cell;
+                CELL_UNITS[cell] = (1 << i) | (1 << (SIZE + j)) | (1 << (2 * SIZE + box));
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (other != cell && (CELL_UNITS[cell] & CELL_UNITS[other]) != 0) {
+                    PEERS[cell][count++] = other;
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int k = 0; k < PEER_COUNT; k++) {
+                int peer = PEERS[cell][k];
+                for (int back = 0; back < PEER_COUNT; back++) {
+                    if (PEERS[peer][back] == cell) REVERSE_ARC[cell * PEER_COUNT + k] = peer * PEER_COUNT + back;
+                }
+            }
+        }
+    }
+
+    private static final SearchOptions DEFAULT_OPTIONS = new SearchOptions();
 
     public static boolean solveSudokuConstraint(int[][] inputGrid) {
-        grid = new int[SIZE][SIZE];
+        return solveSudokuConstraint(inputGrid, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Solves with this thread's pooled solver instance.
+     */
+    public static boolean solveSudokuConstraint(int[][] inputGrid, SearchOptions searchOptions) {
+        return POOL.get().solve(inputGrid, searchOptions);
+    }
+
+    /**
+     * Solves the board in-place. All working state lives in buffers allocated
+     * with the solver and reset here, so repeated solves allocate nothing once
+     * the nogood store has grown to fit the puzzles.
+     */
+    public boolean solve(int[][] inputGrid, SearchOptions searchOptions) {
+        options = searchOptions;
+        random.setSeed(searchOptions.seed);
         for (int i = 0; i < SIZE; i++) {
-            grid[i] = inputGrid[i].clone();
+            System.arraycopy(inputGrid[i], 0, grid[i], 0, SIZE);
         }
         steps = 0;
+        long start = SolverMetrics.phaseStart();
         initializeDomains();
-        printState("Initial State");
-        boolean solved = ac3() && backtrack();
-        
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+        if (SearchEvents.isAttached()) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (grid[cell / SIZE][cell % SIZE] == 0) SearchEvents.domain(cell, domains[cell / SIZE][cell % SIZE]);
+            }
+        }
+        if (TRACE) printState("Initial State");
+
+        start = SolverMetrics.phaseStart();
+        dirtyUnits = ALL_UNITS;
+        boolean consistent = ac3() && propagateAllDifferent();
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.PROPAGATION, start);
+
+        start = SolverMetrics.phaseStart();
+        Arrays.fill(unitWeights, 1);
+        Arrays.fill(literalHead, -1);
+        nogoodCount = 0;
+        nodeCount = 0;
+        boolean solved = consistent && searchWithRestarts();
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.SEARCH, start);
+
         // Copy solution back to input grid if solved
         if (solved) {
             for (int i = 0; i < SIZE; i++) {
                 System.arraycopy(grid[i], 0, inputGrid[i], 0, SIZE);
             }
         }
-        
+
+        return solved;
+    }
+
+    public static boolean solveSudokuConstraint(PackedBoard board) {
+        int[][] inputGrid = board.toArray();
+        boolean solved = solveSudokuConstraint(inputGrid);
+        if (solved) board.setFrom(inputGrid);
         return solved;
     }
 
-    private static void printState(String message) {
+    private void printState(String message) {
         System.out.println("\n" + message + " (Step " + steps++ + ")");
         System.out.println("Current Grid:");
         for (int i = 0; i < SIZE; i++) {
@@ -44,41 +236,40 @@ public class SudokuSolverCP {
             }
             System.out.println();
         }
-        
+
         System.out.println("\nDomain sizes:");
         for (int i = 0; i < SIZE; i++) {
             for (int j = 0; j < SIZE; j++) {
                 if (grid[i][j] == 0) {
-                    System.out.printf("(%d,%d):%d ", i, j, domains[i][j].size());
+                    System.out.printf("(%d,%d):%d ", i, j, Integer.bitCount(domains[i][j]));
                 }
             }
         }
         System.out.println("\n");
     }
 
-    private static void initializeDomains() {
-        domains = new HashSet[SIZE][SIZE];
+    private void initializeDomains() {
         for (int row = 0; row < SIZE; row++) {
             for (int col = 0; col < SIZE; col++) {
-                domains[row][col] = new HashSet<>();
+                domains[row][col] = 0;
                 if (grid[row][col] == 0) {
                     for (int num = 1; num <= SIZE; num++) {
                         if (isValidInitial(num, row, col)) {
-                            domains[row][col].add(num);
+                            domains[row][col] |= 1 << num;
                         }
                     }
                 } else {
-                    domains[row][col].add(grid[row][col]);
+                    domains[row][col] = 1 << grid[row][col];
                 }
             }
         }
     }
 
-    private static boolean isValidInitial(int num, int row, int col) {
+    private boolean isValidInitial(int num, int row, int col) {
         for (int i = 0; i < SIZE; i++) {
             if (grid[row][i] == num || grid[i][col] == num) return false;
         }
-        
+
         int startRow = row - row % SUBGRID_SIZE;
         int startCol = col - col % SUBGRID_SIZE;
         for (int i = 0; i < SUBGRID_SIZE; i++) {
@@ -89,44 +280,55 @@ public class SudokuSolverCP {
         return true;
     }
 
-    private static boolean ac3() {
-        Queue<Arc> queue = new LinkedList<>();
-        Set<String> processed = new HashSet<>();  // To avoid processing same arcs repeatedly
-        
+    // AC-3 work queue: a ring buffer of arc ids plus a bitset of the arcs currently queued.
+    // Every arc is queued at most once, so the ring never holds more than ARCS entries.
+    private final int[] arcQueue = new int[ARCS];
+    private final long[] inQueue = new long[(ARCS + 63) / 64];
+
+    private boolean ac3() {
+        int head = 0;
+        int size = 0;
+        Arrays.fill(inQueue, 0L);
+
         // Initialize queue with all arcs
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == 0) {
-                    for (Point neighbor : getNeighbors(row, col)) {
-                        Arc arc = new Arc(new Point(row, col), neighbor);
-                        String arcKey = row + "," + col + "-" + neighbor.x + "," + neighbor.y;
-                        if (!processed.contains(arcKey)) {
-                            queue.add(arc);
-                            processed.add(arcKey);
-                        }
-                    }
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (grid[cell / SIZE][cell % SIZE] == 0) {
+                for (int k = 0; k < PEER_COUNT; k++) {
+                    int arc = cell * PEER_COUNT + k;
+                    arcQueue[size++] = arc;
+                    inQueue[arc >>> 6] |= 1L << arc;
                 }
             }
         }
 
-        while (!queue.isEmpty()) {
-            Arc arc = queue.poll();
-            if (revise(arc)) {
-                Point source = arc.source;
-                if (domains[source.x][source.y].isEmpty()) {
-                    System.out.println("AC-3: Domain empty at (" + source.x + "," + source.y + ")");
+        while (size > 0) {
+            int arc = arcQueue[head];
+            head = head + 1 == ARCS ? 0 : head + 1;
+            size--;
+            inQueue[arc >>> 6] &= ~(1L << arc);
+
+            int source = arc / PEER_COUNT;
+            int target = PEERS[source][arc % PEER_COUNT];
+            if (revise(source, target)) {
+                SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
+                int row = source / SIZE;
+                int col = source % SIZE;
+                if (domains[row][col] == 0) {
+                    if (TRACE) System.out.println("AC-3: Domain empty at (" + row + "," + col + ")");
                     return false;
                 }
-                if (domains[source.x][source.y].size() == 1) {
-                    printState("Value deduced during AC-3 at (" + source.x + "," + source.y + ")");
+                if (TRACE && Integer.bitCount(domains[row][col]) == 1) {
+                    printState("Value deduced during AC-3 at (" + row + "," + col + ")");
                 }
-                for (Point neighbor : getNeighbors(source.x, source.y)) {
-                    if (!neighbor.equals(arc.target)) {
-                        String arcKey = neighbor.x + "," + neighbor.y + "-" + source.x + "," + source.y;
-                        if (!processed.contains(arcKey)) {
-                            queue.add(new Arc(neighbor, source));
-                            processed.add(arcKey);
-                        }
+                // Peers of the source must be revised against it again
+                for (int k = 0; k < PEER_COUNT; k++) {
+                    if (PEERS[source][k] == target) continue;
+                    int back = REVERSE_ARC[source * PEER_COUNT + k];
+                    if ((inQueue[back >>> 6] & (1L << back)) == 0) {
+                        inQueue[back >>> 6] |= 1L << back;
+                        int tail = head + size;
+                        arcQueue[tail >= ARCS ? tail - ARCS : tail] = back;
+                        size++;
                     }
                 }
             }
@@ -134,141 +336,393 @@ public class SudokuSolverCP {
         return true;
     }
 
-    private static boolean revise(Arc arc) {
-        boolean revised = false;
-        Point source = arc.source;
-        Point target = arc.target;
-        
-        if (grid[target.x][target.y] != 0) {
-            int targetValue = grid[target.x][target.y];
-            if (domains[source.x][source.y].contains(targetValue)) {
-                domains[source.x][source.y].remove(targetValue);
-                revised = true;
+    /**
+     * Removes the values of {@code source} that have no support in {@code target}.
+     * Peers must differ, so a value loses its support only when the target is
+     * assigned it or has it as its single remaining value.
+     */
+    private boolean revise(int source, int target) {
+        int targetValue = grid[target / SIZE][target % SIZE];
+        int targetDomain = targetValue != 0 ? 1 << targetValue : domains[target / SIZE][target % SIZE];
+        if (Integer.bitCount(targetDomain) != 1) return false;
+        if ((domains[source / SIZE][source % SIZE] & targetDomain) == 0) return false;
+        removeValues(source, targetDomain);
+        return true;
+    }
+
+    private void removeValues(int cell, int mask) {
+        domains[cell / SIZE][cell % SIZE] &= ~mask;
+        dirtyUnits |= CELL_UNITS[cell];
+        SearchEvents.domain(cell, domains[cell / SIZE][cell % SIZE]);
+    }
+
+    /**
+     * Enforces generalised arc consistency of the all-different constraint on every
+     * dirty unit (Regin's algorithm): values that cannot take part in any complete
+     * assignment of the unit are removed. Units touched by those removals are
+     * marked dirty in turn until a fixpoint is reached.
+     * @return false if some unit can no longer be completed
+     */
+    private boolean propagateAllDifferent() {
+        while (dirtyUnits != 0) {
+            int unit = Integer.numberOfTrailingZeros(dirtyUnits);
+            dirtyUnits &= dirtyUnits - 1;
+            if (!filterUnit(unit)) {
+                unitWeights[unit]++;
+                dirtyUnits = 0;
+                return false;
             }
-            return revised;
-        }
-        
-        Set<Integer> toRemove = new HashSet<>();
-        for (int x : domains[source.x][source.y]) {
-            boolean hasValidValue = false;
-            for (int y : domains[target.x][target.y]) {
-                if (isConsistent(x, y, source, target)) {
-                    hasValidValue = true;
-                    break;
-                }
+        }
+        return true;
+    }
+
+    // Scratch space for filterUnit: unit cells are nodes 0-8, values 1-9 are nodes 9-17
+    private final int[] unitDomains = new int[SIZE];
+    private final int[] cellMatch = new int[SIZE];
+    private final int[] valueMatch = new int[SIZE];
+    private final int[] adjacency = new int[2 * SIZE];
+    private final int[] component = new int[2 * SIZE];
+    private final int[] lowLink = new int[2 * SIZE];
+    private final int[] order = new int[2 * SIZE];
+    private final int[] tarjanStack = new int[2 * SIZE];
+    private int visitedValues;
+    private int tarjanDepth;
+    private int tarjanIndex;
+    private int componentCount;
+
+    private boolean filterUnit(int unit) {
+        int[] cells = UNIT_CELLS[unit];
+        for (int i = 0; i < SIZE; i++) {
+            // Shift so that value v occupies bit v - 1
+            unitDomains[i] = domains[cells[i] / SIZE][cells[i] % SIZE] >>> 1;
+            cellMatch[i] = -1;
+            valueMatch[i] = -1;
+        }
+
+        // Maximum bipartite matching between cells and values
+        for (int i = 0; i < SIZE; i++) {
+            visitedValues = 0;
+            if (!augment(i)) return false;
+        }
+
+        // Matched edges point value -> cell, free edges cell -> value. A free edge can
+        // be part of some perfect matching only if both ends share a component.
+        for (int i = 0; i < SIZE; i++) {
+            adjacency[i] = (unitDomains[i] & ~(1 << cellMatch[i])) << SIZE;
+            adjacency[SIZE + i] = 1 << valueMatch[i];
+        }
+        Arrays.fill(order, -1);
+        tarjanDepth = 0;
+        tarjanIndex = 0;
+        componentCount = 0;
+        for (int node = 0; node < 2 * SIZE; node++) {
+            if (order[node] < 0) strongConnect(node);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            int unsupported = 0;
+            for (int bits = unitDomains[i] & ~(1 << cellMatch[i]); bits != 0; bits &= bits - 1) {
+                int value = Integer.numberOfTrailingZeros(bits);
+                if (component[i] != component[SIZE + value]) unsupported |= 1 << value;
             }
-            if (!hasValidValue) {
-                toRemove.add(x);
-                revised = true;
+            if (unsupported != 0) {
+                removeValues(cells[i], unsupported << 1);
+                SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
             }
         }
-        
-        domains[source.x][source.y].removeAll(toRemove);
-        return revised;
+        return true;
     }
 
-    private static boolean backtrack() {
-        Point emptyCell = findMRV();
-        if (emptyCell == null) {
-            printState("Solution Found!");
-            return true;
-        }
-
-        int row = emptyCell.x;
-        int col = emptyCell.y;
-        List<Integer> orderedValues = new ArrayList<>(domains[row][col]);
-        Collections.sort(orderedValues); // You could implement LCV heuristic here
-
-        for (int num : orderedValues) {
-            if (isValid(num, row, col)) {
-                grid[row][col] = num;
-                Set<Integer> oldDomain = new HashSet<>(domains[row][col]);
-                domains[row][col] = new HashSet<>(Collections.singleton(num));
-                
-                Map<Point, Set<Integer>> savedDomains = saveDomainsState();
-                printState("Trying " + num + " at (" + row + "," + col + ")");
-                
-                if (forwardCheck(row, col) && backtrack()) {
-                    return true;
-                }
-                
-                printState("Backtracking from " + num + " at (" + row + "," + col + ")");
-                grid[row][col] = 0;
-                restoreDomainsState(savedDomains);
-                domains[row][col] = oldDomain;
+    private boolean augment(int cell) {
+        for (int bits = unitDomains[cell] & ~visitedValues; bits != 0; bits &= bits - 1) {
+            int value = Integer.numberOfTrailingZeros(bits);
+            if ((visitedValues & (1 << value)) != 0) continue;
+            visitedValues |= 1 << value;
+            if (valueMatch[value] < 0 || augment(valueMatch[value])) {
+                cellMatch[cell] = value;
+                valueMatch[value] = cell;
+                return true;
             }
         }
         return false;
     }
 
-    private static Point findMRV() {
-        Point bestCell = null;
-        int minDomainSize = Integer.MAX_VALUE;
-        
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == 0) {
-                    int domainSize = domains[row][col].size();
-                    if (domainSize < minDomainSize) {
-                        minDomainSize = domainSize;
-                        bestCell = new Point(row, col);
-                    }
+    private void strongConnect(int node) {
+        order[node] = lowLink[node] = tarjanIndex++;
+        tarjanStack[tarjanDepth++] = node;
+        component[node] = -1;
+        for (int edges = adjacency[node]; edges != 0; edges &= edges - 1) {
+            int next = Integer.numberOfTrailingZeros(edges);
+            if (order[next] < 0) {
+                strongConnect(next);
+                lowLink[node] = Math.min(lowLink[node], lowLink[next]);
+            } else if (component[next] < 0) {
+                lowLink[node] = Math.min(lowLink[node], order[next]);
+            }
+        }
+        if (lowLink[node] == order[node]) {
+            int member;
+            do {
+                member = tarjanStack[--tarjanDepth];
+                component[member] = componentCount;
+            } while (member != node);
+            componentCount++;
+        }
+    }
+
+    private boolean searchWithRestarts() {
+        copyDomains(domains, rootDomains);
+        rootDirtyUnits = 0;
+        for (int run = 1; ; run++) {
+            nodeLimit = options.nodeBudget;
+            if (options.restarts) {
+                nodeLimit = Math.min(nodeLimit, nodeCount + options.restartBase * luby(run));
+            }
+            decisionCount = 0;
+            int result = backtrack(0);
+            if (result != ABORTED) return result == SOLVED;
+            if (nodeCount >= options.nodeBudget) return false;
+
+            // Restart from the root, keeping the weights and the learnt nogoods
+            SolverMetrics.increment(SolverMetrics.Count.RESTARTS);
+            restoreDomainsState(rootDomains);
+            dirtyUnits = rootDirtyUnits;
+            rootDirtyUnits = 0;
+            if (!propagateAllDifferent()) return false;
+            copyDomains(domains, rootDomains);
+        }
+    }
+
+    /**
+     * Depth-first search below the current state.
+     * @return SOLVED, FAILED once the whole subtree is refuted, or ABORTED when the
+     *         node limit of the current run is reached
+     */
+    private int backtrack(int depth) {
+        int emptyCell = selectVariable();
+        if (emptyCell < 0) {
+            if (TRACE) printState("Solution Found!");
+            return SOLVED;
+        }
+        if (nodeCount >= nodeLimit) return ABORTED;
+
+        int row = emptyCell / SIZE;
+        int col = emptyCell % SIZE;
+        int[] values = valueOrderStack[depth];
+        int valueCount = orderValues(emptyCell, values);
+        boolean branching = valueCount > 1;
+
+        for (int i = 0; i < valueCount; i++) {
+            int num = values[i];
+            if (!isValid(num, row, col) || isNogood(emptyCell * 10 + num)) continue;
+
+            grid[row][col] = num;
+            int[][] savedDomains = domainStack[depth];
+            copyDomains(domains, savedDomains);
+            domains[row][col] = 1 << num;
+            SearchEvents.place(emptyCell, num);
+            nodeCount++;
+            SolverMetrics.increment(SolverMetrics.Count.NODES);
+            if (TRACE) printState("Trying " + num + " at (" + row + "," + col + ")");
+            if (branching) decisionLiterals[decisionCount++] = emptyCell * 10 + num;
+
+            dirtyUnits = CELL_UNITS[emptyCell];
+            int result = forwardCheck(row, col) && propagateAllDifferent() ? backtrack(depth + 1) : FAILED;
+            if (result == SOLVED) {
+                return SOLVED;
+            }
+
+            if (TRACE) printState("Backtracking from " + num + " at (" + row + "," + col + ")");
+            SolverMetrics.increment(SolverMetrics.Count.BACKTRACKS);
+            grid[row][col] = 0;
+            SearchEvents.remove(emptyCell);
+            restoreDomainsState(savedDomains);
+            if (branching) decisionCount--;
+            if (result == ABORTED) return ABORTED;
+            if (branching) recordNogood(emptyCell * 10 + num);
+        }
+        return FAILED;
+    }
+
+    private int selectVariable() {
+        int bestCell = -1;
+        // Compare size / weight as size * bestWeight < bestSize * weight
+        int bestSize = 1;
+        int bestWeight = 0;
+        int ties = 0;
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (grid[cell / SIZE][cell % SIZE] != 0) continue;
+            int size = Integer.bitCount(domains[cell / SIZE][cell % SIZE]);
+            if (size == 1) return cell;
+            int weight = 1;
+            if (options.variableOrdering == VariableOrdering.DOM_WDEG) {
+                weight = 0;
+                for (int units = CELL_UNITS[cell]; units != 0; units &= units - 1) {
+                    weight += unitWeights[Integer.numberOfTrailingZeros(units)];
                 }
             }
+            long lhs = (long) size * bestWeight;
+            long rhs = (long) bestSize * weight;
+            if (bestCell < 0 || lhs < rhs) {
+                bestCell = cell;
+                bestSize = size;
+                bestWeight = weight;
+                ties = 1;
+            } else if (lhs == rhs && options.randomTieBreaking && random.nextInt(++ties) == 0) {
+                bestCell = cell;
+            }
         }
         return bestCell;
     }
 
-    private static Map<Point, Set<Integer>> saveDomainsState() {
-        Map<Point, Set<Integer>> state = new HashMap<>();
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (grid[i][j] == 0) {
-                    state.put(new Point(i, j), new HashSet<>(domains[i][j]));
+    /**
+     * Writes the cell's candidate values into {@code values} in the order they
+     * should be tried and returns how many there are.
+     */
+    private int orderValues(int cell, int[] values) {
+        int count = 0;
+        for (int bits = domains[cell / SIZE][cell % SIZE]; bits != 0; bits &= bits - 1) {
+            values[count++] = Integer.numberOfTrailingZeros(bits);
+        }
+        if (options.valueOrdering == ValueOrdering.LEAST_CONSTRAINING) {
+            for (int i = 0; i < count; i++) {
+                int bit = 1 << values[i];
+                int score = 0;
+                for (int peer : PEERS[cell]) {
+                    if (grid[peer / SIZE][peer % SIZE] == 0 && (domains[peer / SIZE][peer % SIZE] & bit) != 0) {
+                        score++;
+                    }
+                }
+                lcvScores[values[i]] = score;
+            }
+        }
+        if (options.randomTieBreaking) {
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        if (options.valueOrdering == ValueOrdering.LEAST_CONSTRAINING) {
+            // Stable insertion sort keeps ascending (or shuffled) order among ties
+            for (int i = 1; i < count; i++) {
+                int value = values[i];
+                int j = i - 1;
+                while (j >= 0 && lcvScores[values[j]] > lcvScores[value]) {
+                    values[j + 1] = values[j];
+                    j--;
                 }
+                values[j + 1] = value;
             }
         }
-        return state;
+        return count;
     }
 
-    private static void restoreDomainsState(Map<Point, Set<Integer>> state) {
-        for (Map.Entry<Point, Set<Integer>> entry : state.entrySet()) {
-            Point p = entry.getKey();
-            domains[p.x][p.y] = new HashSet<>(entry.getValue());
+    /**
+     * Records that the branching decisions on the current path together with
+     * {@code literal} admit no solution. Propagation depends only on the set of
+     * assignments, so the nogood holds in any later run regardless of order.
+     */
+    private void recordNogood(int literal) {
+        if (!options.nogoods || decisionCount + 1 > MAX_NOGOOD_SIZE) return;
+        if (decisionCount == 0) {
+            // Refuted at the root: drop the value for every later run
+            int cell = literal / 10;
+            rootDomains[cell / SIZE][cell % SIZE] &= ~(1 << (literal % 10));
+            rootDirtyUnits |= CELL_UNITS[cell];
+            return;
         }
+        if (nogoodCount >= MAX_NOGOODS) return;
+        int start = nogoodStart[nogoodCount];
+        int end = start + decisionCount + 1;
+        if (end > nogoodLiterals.length) growNogoodEntries(end);
+        System.arraycopy(decisionLiterals, 0, nogoodLiterals, start, decisionCount);
+        nogoodLiterals[end - 1] = literal;
+        for (int entry = start; entry < end; entry++) {
+            int lit = nogoodLiterals[entry];
+            entryNogood[entry] = nogoodCount;
+            nextEntry[entry] = literalHead[lit];
+            literalHead[lit] = entry;
+        }
+        nogoodStart[++nogoodCount] = end;
     }
 
-    // Rest of the helper methods remain the same
-    private static boolean isConsistent(int value1, int value2, Point pos1, Point pos2) {
-        if (pos1.x == pos2.x || pos1.y == pos2.y) {
-            return value1 != value2;
-        }
-        
-        int subgridRow1 = pos1.x / SUBGRID_SIZE;
-        int subgridCol1 = pos1.y / SUBGRID_SIZE;
-        int subgridRow2 = pos2.x / SUBGRID_SIZE;
-        int subgridCol2 = pos2.y / SUBGRID_SIZE;
-        
-        if (subgridRow1 == subgridRow2 && subgridCol1 == subgridCol2) {
-            return value1 != value2;
-        }
-        
-        return true;
+    /**
+     * Grows the entry arrays, which then stay large for later solves on this thread.
+     */
+    private void growNogoodEntries(int needed) {
+        int capacity = Math.max(needed, 2 * nogoodLiterals.length);
+        nogoodLiterals = Arrays.copyOf(nogoodLiterals, capacity);
+        entryNogood = Arrays.copyOf(entryNogood, capacity);
+        nextEntry = Arrays.copyOf(nextEntry, capacity);
+    }
+
+    /**
+     * @return true if assigning {@code literal} would complete a recorded nogood
+     */
+    private boolean isNogood(int literal) {
+        for (int entry = literalHead[literal]; entry >= 0; entry = nextEntry[entry]) {
+            int nogood = entryNogood[entry];
+            boolean violated = true;
+            for (int i = nogoodStart[nogood]; i < nogoodStart[nogood + 1]; i++) {
+                int lit = nogoodLiterals[i];
+                int cell = lit / 10;
+                if (lit != literal && grid[cell / SIZE][cell % SIZE] != lit % 10) {
+                    violated = false;
+                    break;
+                }
+            }
+            if (violated) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ... for i >= 1.
+     */
+    static long luby(int i) {
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) k++;
+            if ((1L << k) - 1 == i) return 1L << (k - 1);
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+
+    private static void copyDomains(int[][] from, int[][] to) {
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(from[i], 0, to[i], 0, SIZE);
+        }
+    }
+
+    private void restoreDomainsState(int[][] state) {
+        if (SearchEvents.isAttached()) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                int domain = state[cell / SIZE][cell % SIZE];
+                if (domain != domains[cell / SIZE][cell % SIZE]) SearchEvents.domain(cell, domain);
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(state[i], 0, domains[i], 0, SIZE);
+        }
     }
 
-    private static boolean isValid(int num, int row, int col) {
+    // Rest of the helper methods remain the same
+    private boolean isValid(int num, int row, int col) {
         for (int i = 0; i < SIZE; i++) {
-            if ((i != col && grid[row][i] == num) || 
+            if ((i != col && grid[row][i] == num) ||
                 (i != row && grid[i][col] == num)) {
                 return false;
             }
         }
-        
+
         int startRow = row - row % SUBGRID_SIZE;
         int startCol = col - col % SUBGRID_SIZE;
         for (int i = 0; i < SUBGRID_SIZE; i++) {
             for (int j = 0; j < SUBGRID_SIZE; j++) {
-                if ((startRow + i != row || startCol + j != col) && 
+                if ((startRow + i != row || startCol + j != col) &&
                     grid[i + startRow][j + startCol] == num) {
                     return false;
                 }
@@ -277,45 +731,25 @@ public class SudokuSolverCP {
         return true;
     }
 
-    private static boolean forwardCheck(int row, int col) {
-        for (Point neighbor : getNeighbors(row, col)) {
-            if (grid[neighbor.x][neighbor.y] == 0) {
-                domains[neighbor.x][neighbor.y].remove(grid[row][col]);
-                if (domains[neighbor.x][neighbor.y].isEmpty()) {
+    private boolean forwardCheck(int row, int col) {
+        int bit = 1 << grid[row][col];
+        for (int neighbor : PEERS[row * SIZE + col]) {
+            int nRow = neighbor / SIZE;
+            int nCol = neighbor % SIZE;
+            if (grid[nRow][nCol] == 0) {
+                if ((domains[nRow][nCol] & bit) != 0) {
+                    removeValues(neighbor, bit);
+                    SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
+                }
+                if (domains[nRow][nCol] == 0) {
+                    int shared = CELL_UNITS[row * SIZE + col] & CELL_UNITS[neighbor];
+                    for (; shared != 0; shared &= shared - 1) {
+                        unitWeights[Integer.numberOfTrailingZeros(shared)]++;
+                    }
                     return false;
                 }
             }
         }
         return true;
     }
-
-    private static class Arc {
-        Point source;
-        Point target;
-
-        Arc(Point source, Point target) {
-            this.source = source;
-            this.target = target;
-        }
-    }
-
-    private static Set<Point> getNeighbors(int row, int col) {
-        Set<Point> neighbors = new HashSet<>();
-        
-        for (int i = 0; i < SIZE; i++) {
-            if (i != col) neighbors.add(new Point(row, i));
-            if (i != row) neighbors.add(new Point(i, col));
-        }
-        
-        int startRow = row - row % SUBGRID_SIZE;
-        int startCol = col - col % SUBGRID_SIZE;
-        for (int r = 0; r < SUBGRID_SIZE; r++) {
-            for (int c = 0; c < SUBGRID_SIZE; c++) {
-                if (startRow + r != row || startCol + c != col) {
-                    neighbors.add(new Point(startRow + r, startCol + c));
-                }
-            }
-        }
-        return neighbors;
-    }
 }
\ No newline at end of file
@@ -1,16 +1,27 @@
 package AICp;
 
-import java.util.*;
-
 public class SudokuSolverMRV {
     private static final int SIZE = 9;
-    
+    // One solver per thread, so the static entry points reuse its trail
+    private static final ThreadLocal<SudokuSolverMRV> POOL = ThreadLocal.withInitial(SudokuSolverMRV::new);
+
+    // Cells (row * SIZE + col) filled on the current path, so a failed branch can clear them
+    private final int[] trail = new int[SIZE * SIZE];
+    private int trailSize;
+
     /**
      * Solves the given Sudoku board in-place.
      * @param board 9x9 Sudoku board where 0 represents empty cells
      * @return true if a solution was found, false otherwise
      */
     public static boolean solve(int[][] board) {
+        SudokuSolverMRV solver = POOL.get();
+        solver.trailSize = 0;
+        return solver.search(board);
+    }
+
+    private boolean search(int[][] board) {
+        int mark = trailSize;
         // First, try to fill obvious cells
         boolean progress;
         do {
@@ -19,9 +30,10 @@ public class SudokuSolverMRV {
             for (int i = 0; i < SIZE; i++) {
                 for (int j = 0; j < SIZE; j++) {
                     if (board[i][j] == 0) {
-                        List<Integer> possibleValues = getPossibleValues(board, i, j);
-                        if (possibleValues.size() == 1) {
-                            board[i][j] = possibleValues.get(0);
+                        int possibleValues = getPossibleValues(board, i, j);
+                        if (Integer.bitCount(possibleValues) == 1) {
+                            place(board, i, j, Integer.numberOfTrailingZeros(possibleValues));
+                            SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
                             progress = true;
                         }
                     }
@@ -34,28 +46,57 @@ public class SudokuSolverMRV {
         } while (progress);
 
         // Then use backtracking with MRV for remaining cells
-        int[] cell = findMRV(board);
-        if (cell == null) {
-            return isComplete(board);
+        int cell = findMRV(board);
+        if (cell < 0) {
+            if (isComplete(board)) return true;
+            undo(board, mark);
+            return false;
         }
 
-        int row = cell[0], col = cell[1];
-        List<Integer> possibleValues = getPossibleValues(board, row, col);
-        Collections.sort(possibleValues); // Try values in ascending order for consistency
-
-        for (int value : possibleValues) {
-            if (isValid(board, row, col, value)) {
-                board[row][col] = value;
-                if (solve(board)) {
-                    return true;
-                }
-                board[row][col] = 0; // Backtrack
+        int row = cell / SIZE, col = cell % SIZE;
+        // Bits come out lowest first, so values are tried in ascending order
+        for (int values = getPossibleValues(board, row, col); values != 0; values &= values - 1) {
+            int value = Integer.numberOfTrailingZeros(values);
+            board[row][col] = value;
+            SolverMetrics.increment(SolverMetrics.Count.NODES);
+            if (search(board)) {
+                return true;
             }
+            board[row][col] = 0; // Backtrack
+            SolverMetrics.increment(SolverMetrics.Count.BACKTRACKS);
         }
+        undo(board, mark);
         return false;
     }
 
-    private static boolean fillHiddenSingles(int[][] board) {
+    private void place(int[][] board, int row, int col, int value) {
+        board[row][col] = value;
+        trail[trailSize++] = row * SIZE + col;
+    }
+
+    /**
+     * Clears the cells filled since the trail was {@code mark} long.
+     */
+    private void undo(int[][] board, int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            board[cell / SIZE][cell % SIZE] = 0;
+        }
+    }
+
+    /**
+     * Solves a packed board in-place.
+     * @param board packed board where 0 represents empty cells
+     * @return true if a solution was found, false otherwise
+     */
+    public static boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    private boolean fillHiddenSingles(int[][] board) {
         boolean progress = false;
         
         // Check rows
@@ -76,7 +117,7 @@ public class SudokuSolverMRV {
         return progress;
     }
 
-    private static boolean findHiddenSinglesInUnit(int[][] board, int index, boolean isRow) {
+    private boolean findHiddenSinglesInUnit(int[][] board, int index, boolean isRow) {
         boolean progress = false;
         for (int num = 1; num <= SIZE; num++) {
             int count = 0;
@@ -92,17 +133,18 @@ public class SudokuSolverMRV {
             
             if (count == 1) {
                 if (isRow) {
-                    board[index][lastPos] = num;
+                    place(board, index, lastPos, num);
                 } else {
-                    board[lastPos][index] = num;
+                    place(board, lastPos, index, num);
                 }
+                SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
                 progress = true;
             }
         }
         return progress;
     }
 
-    private static boolean findHiddenSinglesInBox(int[][] board, int startRow, int startCol) {
+    private boolean findHiddenSinglesInBox(int[][] board, int startRow, int startCol) {
         boolean progress = false;
         for (int num = 1; num <= SIZE; num++) {
             int count = 0;
@@ -121,7 +163,8 @@ public class SudokuSolverMRV {
             }
             
             if (count == 1) {
-                board[lastRow][lastCol] = num;
+                place(board, lastRow, lastCol, num);
+                SolverMetrics.increment(SolverMetrics.Count.PROPAGATIONS);
                 progress = true;
             }
         }
@@ -129,14 +172,7 @@ public class SudokuSolverMRV {
     }
 
     private static boolean isComplete(int[][] board) {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (board[i][j] == 0 || !isValid(board, i, j, board[i][j])) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return BoardBatchEvaluator.isSolved(board);
     }
 
     private static boolean isValid(int[][] board, int row, int col, int num) {
@@ -163,25 +199,33 @@ public class SudokuSolverMRV {
         return true;
     }
 
-    private static int[] findMRV(int[][] board) {
+    /**
+     * @return the empty cell (row * SIZE + col) with the fewest options, ties going
+     *         to the most empty neighbours, or -1 if no empty cell has options
+     */
+    private static int findMRV(int[][] board) {
         int minOptions = Integer.MAX_VALUE;
-        int[] cell = null;
+        int cell = -1;
+        int cellDegree = -1;
 
         for (int i = 0; i < SIZE; i++) {
             for (int j = 0; j < SIZE; j++) {
                 if (board[i][j] == 0) {
-                    List<Integer> possibleValues = getPossibleValues(board, i, j);
-                    int options = possibleValues.size();
+                    int options = Integer.bitCount(getPossibleValues(board, i, j));
                     if (options == 0) {
                         continue;  // Skip cells with no valid options
                     }
                     if (options < minOptions) {
                         minOptions = options;
-                        cell = new int[]{i, j};
+                        cell = i * SIZE + j;
+                        cellDegree = -1;
                     } else if (options == minOptions) {
                         // Use Degree Heuristic if MRV is tied
-                        if (cell != null && getDegree(board, i, j) > getDegree(board, cell[0], cell[1])) {
-                            cell = new int[]{i, j};
+                        if (cellDegree < 0) cellDegree = getDegree(board, cell / SIZE, cell % SIZE);
+                        int degree = getDegree(board, i, j);
+                        if (degree > cellDegree) {
+                            cell = i * SIZE + j;
+                            cellDegree = degree;
                         }
                     }
                 }
@@ -190,36 +234,42 @@ public class SudokuSolverMRV {
         return cell;
     }
 
-    private static List<Integer> getPossibleValues(int[][] board, int row, int col) {
-        List<Integer> values = new ArrayList<>();
+    /**
+     * @return the values that fit the cell, as a bitmask with bit v set for value v
+     */
+    private static int getPossibleValues(int[][] board, int row, int col) {
+        int values = 0;
         for (int num = 1; num <= SIZE; num++) {
             if (isValid(board, row, col, num)) {
-                values.add(num);
+                values |= 1 << num;
             }
         }
         return values;
     }
 
+    /**
+     * @return the number of distinct empty cells in the cell's row, column and box
+     */
     private static int getDegree(int[][] board, int row, int col) {
-        Set<String> unfilledNeighbors = new HashSet<>();
+        int unfilledNeighbors = 0;
 
-        // Check row and column
+        // Check row and column, counting the cell itself once
         for (int i = 0; i < SIZE; i++) {
-            if (board[row][i] == 0) unfilledNeighbors.add(row + "," + i);
-            if (board[i][col] == 0) unfilledNeighbors.add(i + "," + col);
+            if (board[row][i] == 0) unfilledNeighbors++;
+            if (i != row && board[i][col] == 0) unfilledNeighbors++;
         }
 
-        // Check 3x3 box
+        // Check the 3x3 box cells outside the row and column
         int startRow = row - row % 3;
         int startCol = col - col % 3;
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                if (board[startRow + i][startCol + j] == 0) {
-                    unfilledNeighbors.add((startRow + i) + "," + (startCol + j));
+                if (startRow + i != row && startCol + j != col && board[startRow + i][startCol + j] == 0) {
+                    unfilledNeighbors++;
                 }
             }
         }
 
-        return unfilledNeighbors.size();
+        return unfilledNeighbors;
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package AICp;
+
+import java.util.Arrays;
+
+/**
+ * Solves Sudoku by encoding it as CNF and running {@link CdclSolver}.
+ *
+ * Works for any N x N board whose N is a perfect square (9x9, 16x16, 25x25, ...).
+ * Only candidates that survive the givens get a variable: each empty cell must take
+ * exactly one of its candidates and each digit missing from a unit must appear in
+ * exactly one of the unit's empty cells.
+ */
+public class SudokuSolverSAT {
+
+    /**
+     * Solves the given Sudoku board in-place.
+     * @param board N x N Sudoku board where 0 represents empty cells
+     * @return true if a solution was found, false otherwise
+     */
+    public static boolean solve(int[][] board) {
+        long start = SolverMetrics.phaseStart();
+        int n = board.length;
+        int box = (int) Math.round(Math.sqrt(n));
+        if (box * box != n || n > 64) {
+            throw new IllegalArgumentException("Board size must be a perfect square up to 64: " + n);
+        }
+        for (int[] row : board) {
+            if (row.length != n) throw new IllegalArgumentException("Board must be square");
+        }
+
+        // Digits already used by each row, column and box, as bitmasks
+        long[] rowUsed = new long[n];
+        long[] colUsed = new long[n];
+        long[] boxUsed = new long[n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int value = board[r][c];
+                if (value == 0) continue;
+                if (value < 1 || value > n) {
+                    throw new IllegalArgumentException("Value out of range at (" + r + "," + c + "): " + value);
+                }
+                long bit = 1L << (value - 1);
+                int b = (r / box) * box + c / box;
+                if (((rowUsed[r] | colUsed[c] | boxUsed[b]) & bit) != 0) {
+                    SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+                    return false;
+                }
+                rowUsed[r] |= bit;
+                colUsed[c] |= bit;
+                boxUsed[b] |= bit;
+            }
+        }
+
+        // Number the remaining candidates
+        int[] varOf = new int[n * n * n];
+        int numVars = 0;
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                if (board[r][c] != 0) continue;
+                long used = rowUsed[r] | colUsed[c] | boxUsed[(r / box) * box + c / box];
+                for (int d = 0; d < n; d++) {
+                    if ((used & (1L << d)) == 0) varOf[(r * n + c) * n + d] = ++numVars;
+                }
+            }
+        }
+
+        CdclSolver solver = new CdclSolver(numVars);
+        int[] lits = new int[n];
+        boolean consistent = true;
+
+        // Each empty cell holds exactly one candidate
+        for (int cell = 0; cell < n * n && consistent; cell++) {
+            if (board[cell / n][cell % n] != 0) continue;
+            int size = 0;
+            for (int d = 0; d < n; d++) {
+                int var = varOf[cell * n + d];
+                if (var != 0) lits[size++] = var;
+            }
+            consistent = exactlyOne(solver, lits, size);
+        }
+
+        // Each missing digit appears exactly once in every row, column and box
+        for (int unit = 0; unit < 3 * n && consistent; unit++) {
+            long used = unit < n ? rowUsed[unit] : unit < 2 * n ? colUsed[unit - n] : boxUsed[unit - 2 * n];
+            for (int d = 0; d < n && consistent; d++) {
+                if ((used & (1L << d)) != 0) continue;
+                int size = 0;
+                for (int i = 0; i < n; i++) {
+                    int cell = unitCell(unit, i, n, box);
+                    int var = varOf[cell * n + d];
+                    if (var != 0) lits[size++] = var;
+                }
+                consistent = exactlyOne(solver, lits, size);
+            }
+        }
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+        if (!consistent) return false;
+
+        start = SolverMetrics.phaseStart();
+        boolean solved = solver.solve();
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.SEARCH, start);
+        if (!solved) return false;
+
+        for (int cell = 0; cell < n * n; cell++) {
+            for (int d = 0; d < n; d++) {
+                int var = varOf[cell * n + d];
+                if (var != 0 && solver.modelValue(var)) board[cell / n][cell % n] = d + 1;
+            }
+        }
+        return true;
+    }
+
+    public static boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    /**
+     * Adds an at-least-one clause and pairwise at-most-one clauses over the first
+     * {@code size} variables.
+     */
+    private static boolean exactlyOne(CdclSolver solver, int[] vars, int size) {
+        if (!solver.addClause(Arrays.copyOf(vars, size))) return false;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (!solver.addClause(-vars[i], -vars[j])) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the i-th cell index of a unit: rows are 0..n-1, columns n..2n-1 and boxes 2n..3n-1
+     */
+    private static int unitCell(int unit, int i, int n, int box) {
+        if (unit < n) return unit * n + i;
+        if (unit < 2 * n) return i * n + (unit - n);
+        int b = unit - 2 * n;
+        int row = (b / box) * box + i / box;
+        int col = (b % box) * box + i % box;
+        return row * n + col;
+    }
+}
@@ -0,0 +1,75 @@
+package AICp;
+
+/**
+ * An element of the Sudoku symmetry group: optional transposition, a row and a
+ * column permutation that keep bands and stacks intact, and a digit relabeling.
+ *
+ * Applying the transform maps cell (r, c) of the result to
+ * {@code digitMap[source(rowPerm[r], colPerm[c])]}, where the source is read
+ * transposed when {@code transpose} is set.
+ */
+public final class SudokuTransform {
+    private static final int SIZE = 9;
+
+    private final boolean transpose;
+    private final int[] rowPerm;
+    private final int[] colPerm;
+    private final int[] digitMap;
+    private final int[] inverseDigitMap;
+
+    public SudokuTransform(boolean transpose, int[] rowPerm, int[] colPerm, int[] digitMap) {
+        this.transpose = transpose;
+        this.rowPerm = rowPerm.clone();
+        this.colPerm = colPerm.clone();
+        this.digitMap = digitMap.clone();
+        this.inverseDigitMap = new int[SIZE + 1];
+        for (int digit = 0; digit <= SIZE; digit++) {
+            inverseDigitMap[digitMap[digit]] = digit;
+        }
+    }
+
+    private int sourceCell(int row, int col) {
+        int r = rowPerm[row];
+        int c = colPerm[col];
+        return transpose ? c * SIZE + r : r * SIZE + c;
+    }
+
+    public PackedBoard apply(PackedBoard board) {
+        PackedBoard result = new PackedBoard();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                result.set(row * SIZE + col, digitMap[board.get(sourceCell(row, col))]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maps a board in transformed space back to the original orientation and digits.
+     */
+    public PackedBoard invert(PackedBoard board) {
+        PackedBoard result = new PackedBoard();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                result.set(sourceCell(row, col), inverseDigitMap[board.get(row * SIZE + col)]);
+            }
+        }
+        return result;
+    }
+
+    public boolean isTranspose() {
+        return transpose;
+    }
+
+    public int[] getRowPerm() {
+        return rowPerm.clone();
+    }
+
+    public int[] getColPerm() {
+        return colPerm.clone();
+    }
+
+    public int[] getDigitMap() {
+        return digitMap.clone();
+    }
+}
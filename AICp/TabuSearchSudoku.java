@@ -0,0 +1,315 @@
+package AICp;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Min-conflicts tabu search over the same representation as
+ * {@link SimulatedAnnealingSudoku}: every 3x3 box holds a permutation of 1-9 and
+ * moves swap two free cells of a box, so only row and column duplicates remain.
+ *
+ * Row and column digit counts, the total cost and a per-cell conflict score are
+ * updated incrementally after each swap, so a candidate swap is scored in O(1)
+ * and each step only looks at the box of one conflicted cell.
+ *
+ * Like the other metaheuristics it first fills every cell
+ * {@link CandidatePropagator} can determine and treats those cells as givens,
+ * so the search only covers the cells propagation leaves open.
+ */
+public class TabuSearchSudoku {
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int MAX_ITERATIONS = 500_000;
+    private static final int STAGNATION_LIMIT = 5_000;
+    private static final int TABU_TENURE = 10;
+
+    private final int[][] board;
+    private final boolean[] fixed = new boolean[CELLS];
+    private final int[][] boxFree = new int[SIZE][];
+    private final int[][] rowCount = new int[SIZE][SIZE + 1];
+    private final int[][] colCount = new int[SIZE][SIZE + 1];
+    private final int[] conflicts = new int[CELLS];
+    // Free cells with a non-zero conflict score, as an indexed set
+    private final int[] conflicted = new int[CELLS];
+    private final int[] conflictedIndex = new int[CELLS];
+    private int conflictedSize;
+    // Iteration until which a value may not move back into a cell, indexed cell * 10 + value
+    private final long[] tabuUntil = new long[CELLS * 10];
+    private final Xoshiro256 random;
+    private int cost;
+
+    /**
+     * Solves the given Sudoku board in-place.
+     * @param board 9x9 Sudoku board where 0 represents empty cells
+     * @return true if a solution was found, false otherwise (the board is left unchanged)
+     */
+    public static boolean solve(int[][] board) {
+        return solve(board, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Solves with every random choice drawn from {@code seed}, so the same
+     * puzzle and seed repeat the same run.
+     */
+    public static boolean solve(int[][] board, long seed) {
+        boolean[] givens = new boolean[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            givens[cell] = board[cell / SIZE][cell % SIZE] != 0;
+        }
+
+        // Fix every cell propagation can determine and only search the rest
+        long start = SolverMetrics.phaseStart();
+        boolean consistent = CandidatePropagator.propagate(board, true, new int[CELLS]);
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.PROPAGATION, start);
+        if (!consistent) {
+            clearCells(board, givens);
+            return false;
+        }
+
+        start = SolverMetrics.phaseStart();
+        TabuSearchSudoku search = new TabuSearchSudoku(board, seed);
+        consistent = search.givensConsistent();
+        if (consistent) search.randomFill();
+        SolverMetrics.phaseEnd(SolverMetrics.Phase.INITIALIZATION, start);
+
+        boolean solved = false;
+        if (consistent) {
+            start = SolverMetrics.phaseStart();
+            solved = search.run();
+            SolverMetrics.phaseEnd(SolverMetrics.Phase.SEARCH, start);
+        }
+        if (!solved) clearCells(board, givens);
+        return solved;
+    }
+
+    public static boolean solve(PackedBoard board) {
+        int[][] grid = board.toArray();
+        boolean solved = solve(grid);
+        if (solved) board.setFrom(grid);
+        return solved;
+    }
+
+    private TabuSearchSudoku(int[][] board, long seed) {
+        this.board = board;
+        this.random = new Xoshiro256(seed);
+        for (int box = 0; box < SIZE; box++) {
+            int[] free = new int[SIZE];
+            int count = 0;
+            for (int i = 0; i < SIZE; i++) {
+                int cell = boxCell(box, i);
+                fixed[cell] = board[cell / SIZE][cell % SIZE] != 0;
+                if (!fixed[cell]) free[count++] = cell;
+            }
+            boxFree[box] = Arrays.copyOf(free, count);
+        }
+    }
+
+    private boolean run() {
+        int bestCost = cost;
+        long lastImprovement = 0;
+
+        for (long iteration = 1; iteration <= MAX_ITERATIONS && cost > 0; iteration++) {
+            SolverMetrics.increment(SolverMetrics.Count.ITERATIONS);
+            if (iteration - lastImprovement > STAGNATION_LIMIT) {
+                SolverMetrics.increment(SolverMetrics.Count.RESTARTS);
+                randomFill();
+                bestCost = cost;
+                lastImprovement = iteration;
+                continue;
+            }
+
+            // Best non-tabu swap of a random conflicted cell within its box
+            int first = conflicted[random.nextInt(conflictedSize)];
+            int firstValue = valueAt(first);
+            int bestDelta = Integer.MAX_VALUE;
+            int second = -1;
+            int ties = 0;
+            for (int candidate : boxFree[boxOf(first)]) {
+                if (candidate == first) continue;
+                int delta = swapDelta(first, candidate);
+                boolean tabu = tabuUntil[first * 10 + valueAt(candidate)] > iteration
+                        || tabuUntil[candidate * 10 + firstValue] > iteration;
+                // Aspiration: a tabu move is allowed if it beats the best cost so far
+                if (tabu && cost + delta >= bestCost) continue;
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    second = candidate;
+                    ties = 1;
+                } else if (delta == bestDelta && random.nextInt(++ties) == 0) {
+                    second = candidate;
+                }
+            }
+            if (second < 0) continue;
+
+            tabuUntil[first * 10 + firstValue] = iteration + TABU_TENURE + random.nextInt(TABU_TENURE);
+            tabuUntil[second * 10 + valueAt(second)] = iteration + TABU_TENURE + random.nextInt(TABU_TENURE);
+            swap(first, second);
+            SolverMetrics.increment(SolverMetrics.Count.ACCEPTED_MOVES);
+            if (cost < bestCost) {
+                bestCost = cost;
+                lastImprovement = iteration;
+            }
+        }
+        return cost == 0;
+    }
+
+    private boolean givensConsistent() {
+        int[] rows = new int[SIZE];
+        int[] cols = new int[SIZE];
+        int[] boxes = new int[SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = valueAt(cell);
+            if (value == 0) continue;
+            int bit = 1 << value;
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int box = boxOf(cell);
+            if (((rows[row] | cols[col] | boxes[box]) & bit) != 0) return false;
+            rows[row] |= bit;
+            cols[col] |= bit;
+            boxes[box] |= bit;
+        }
+        return true;
+    }
+
+    /**
+     * Fills every box's free cells with a random permutation of its missing digits
+     * and rebuilds the counts, conflict scores and tabu list.
+     */
+    private void randomFill() {
+        int[] missing = new int[SIZE];
+        for (int box = 0; box < SIZE; box++) {
+            int present = 0;
+            for (int i = 0; i < SIZE; i++) {
+                int cell = boxCell(box, i);
+                if (fixed[cell]) present |= 1 << valueAt(cell);
+            }
+            int count = 0;
+            for (int value = 1; value <= SIZE; value++) {
+                if ((present & (1 << value)) == 0) missing[count++] = value;
+            }
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = missing[i];
+                missing[i] = missing[j];
+                missing[j] = temp;
+            }
+            for (int i = 0; i < count; i++) {
+                int cell = boxFree[box][i];
+                board[cell / SIZE][cell % SIZE] = missing[i];
+            }
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            Arrays.fill(rowCount[i], 0);
+            Arrays.fill(colCount[i], 0);
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            rowCount[cell / SIZE][valueAt(cell)]++;
+            colCount[cell % SIZE][valueAt(cell)]++;
+        }
+        cost = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int value = 1; value <= SIZE; value++) {
+                cost += penalty(rowCount[i][value]) + penalty(colCount[i][value]);
+            }
+        }
+        conflictedSize = 0;
+        Arrays.fill(conflictedIndex, -1);
+        for (int cell = 0; cell < CELLS; cell++) {
+            refreshConflicts(cell);
+        }
+        Arrays.fill(tabuUntil, 0);
+    }
+
+    /**
+     * @return the change in cost if the values of two cells in the same box were swapped
+     */
+    private int swapDelta(int a, int b) {
+        int valueA = valueAt(a);
+        int valueB = valueAt(b);
+        int rowA = a / SIZE, colA = a % SIZE;
+        int rowB = b / SIZE, colB = b % SIZE;
+        int delta = 0;
+        if (rowA != rowB) {
+            delta += lineDelta(rowCount[rowA], valueA, valueB) + lineDelta(rowCount[rowB], valueB, valueA);
+        }
+        if (colA != colB) {
+            delta += lineDelta(colCount[colA], valueA, valueB) + lineDelta(colCount[colB], valueB, valueA);
+        }
+        return delta;
+    }
+
+    private static int lineDelta(int[] counts, int removed, int added) {
+        return (counts[added] >= 1 ? 1 : 0) - (counts[removed] >= 2 ? 1 : 0);
+    }
+
+    private void swap(int a, int b) {
+        int valueA = valueAt(a);
+        int valueB = valueAt(b);
+        changeCount(a, valueA, -1);
+        changeCount(b, valueB, -1);
+        changeCount(a, valueB, 1);
+        changeCount(b, valueA, 1);
+        board[a / SIZE][a % SIZE] = valueB;
+        board[b / SIZE][b % SIZE] = valueA;
+
+        // Only the two rows and two columns touched by the swap can change score
+        for (int i = 0; i < SIZE; i++) {
+            refreshConflicts((a / SIZE) * SIZE + i);
+            refreshConflicts((b / SIZE) * SIZE + i);
+            refreshConflicts(i * SIZE + a % SIZE);
+            refreshConflicts(i * SIZE + b % SIZE);
+        }
+    }
+
+    private void changeCount(int cell, int value, int amount) {
+        int[] row = rowCount[cell / SIZE];
+        int[] col = colCount[cell % SIZE];
+        cost -= penalty(row[value]) + penalty(col[value]);
+        row[value] += amount;
+        col[value] += amount;
+        cost += penalty(row[value]) + penalty(col[value]);
+    }
+
+    private void refreshConflicts(int cell) {
+        if (fixed[cell]) return;
+        int value = valueAt(cell);
+        conflicts[cell] = rowCount[cell / SIZE][value] - 1 + colCount[cell % SIZE][value] - 1;
+        int index = conflictedIndex[cell];
+        if (conflicts[cell] > 0 && index < 0) {
+            conflictedIndex[cell] = conflictedSize;
+            conflicted[conflictedSize++] = cell;
+        } else if (conflicts[cell] == 0 && index >= 0) {
+            int last = conflicted[--conflictedSize];
+            conflicted[index] = last;
+            conflictedIndex[last] = index;
+            conflictedIndex[cell] = -1;
+        }
+    }
+
+    /**
+     * Empties every cell that was not given, undoing propagation as well as search.
+     */
+    private static void clearCells(int[][] board, boolean[] givens) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (!givens[cell]) board[cell / SIZE][cell % SIZE] = 0;
+        }
+    }
+
+    private static int penalty(int count) {
+        return count > 1 ? count - 1 : 0;
+    }
+
+    private int valueAt(int cell) {
+        return board[cell / SIZE][cell % SIZE];
+    }
+
+    private static int boxOf(int cell) {
+        return (cell / SIZE / 3) * 3 + (cell % SIZE) / 3;
+    }
+
+    private static int boxCell(int box, int i) {
+        return ((box / 3) * 3 + i / 3) * SIZE + (box % 3) * 3 + i % 3;
+    }
+}
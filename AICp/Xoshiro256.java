@@ -0,0 +1,89 @@
+package AICp;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * xoshiro256** generator behind the {@link Random} API, so it drops into code
+ * written against Random. Unlike Random it is unsynchronized and its state can
+ * be read and restored, which checkpoints rely on. Not thread-safe; give every
+ * solver its own instance and reseed it per run.
+ */
+public class Xoshiro256 extends Random {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public Xoshiro256(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Expands the seed into the full state with SplitMix64, so nearby seeds
+     * give unrelated sequences.
+     */
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed); // Clears Random's cached Gaussian
+        s0 = splitMix(seed += 0x9E3779B97F4A7C15L);
+        s1 = splitMix(seed += 0x9E3779B97F4A7C15L);
+        s2 = splitMix(seed += 0x9E3779B97F4A7C15L);
+        s3 = splitMix(seed + 0x9E3779B97F4A7C15L);
+    }
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the four state words, for {@link #setState(long[])}
+     */
+    public long[] getState() {
+        return new long[]{s0, s1, s2, s3};
+    }
+
+    public void setState(long[] state) {
+        if (state.length != 4 || (state[0] | state[1] | state[2] | state[3]) == 0) {
+            throw new IllegalArgumentException("State must be four words, not all zero");
+        }
+        s0 = state[0];
+        s1 = state[1];
+        s2 = state[2];
+        s3 = state[3];
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
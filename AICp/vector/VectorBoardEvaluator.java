@@ -0,0 +1,57 @@
+package AICp.vector;
+
+import AICp.BoardBatch;
+import AICp.BoardBatchEvaluator;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of {@link BoardBatchEvaluator}: each lane holds one board,
+ * so a unit is scored for a whole vector of boards with nine loads, shifts and ORs.
+ *
+ * Needs {@code --add-modules jdk.incubator.vector} at compile and run time; it is
+ * only ever loaded reflectively through {@link BoardBatchEvaluator#create()}.
+ */
+public final class VectorBoardEvaluator extends BoardBatchEvaluator {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.length() + "x32";
+    }
+
+    @Override
+    protected void score(BoardBatch batch, int firstUnit, int[] out) {
+        int[] cells = batch.array();
+        int stride = batch.capacity();
+        int size = batch.size();
+        int bound = SPECIES.loopBound(size);
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        IntVector maxDistinct = IntVector.broadcast(SPECIES, (UNIT_COUNT - firstUnit) * SIZE);
+
+        for (int b = 0; b < bound; b += SPECIES.length()) {
+            IntVector distinct = IntVector.zero(SPECIES);
+            for (int unit = firstUnit; unit < UNIT_COUNT; unit++) {
+                IntVector seen = IntVector.zero(SPECIES);
+                for (int cell : UNITS[unit]) {
+                    IntVector values = IntVector.fromArray(SPECIES, cells, cell * stride + b);
+                    seen = seen.or(one.lanewise(VectorOperators.LSHL, values));
+                }
+                distinct = distinct.add(bitCount(seen.and(DIGIT_MASK)));
+            }
+            maxDistinct.sub(distinct).intoArray(out, b);
+        }
+        scoreScalar(batch, firstUnit, out, bound, size);
+    }
+
+    /**
+     * Lane-wise population count of values below 2^16.
+     */
+    private static IntVector bitCount(IntVector x) {
+        x = x.sub(x.lanewise(VectorOperators.LSHR, 1).and(0x5555));
+        x = x.and(0x3333).add(x.lanewise(VectorOperators.LSHR, 2).and(0x3333));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F);
+        return x.add(x.lanewise(VectorOperators.LSHR, 8)).and(0x1F);
+    }
+}